@@ -0,0 +1,127 @@
+package the8puzzle;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import javax.swing.Timer;
+
+/**
+ * A single animation scheduler shared by all the tiles, driven by one Swing
+ * timer which only runs while some animation is active.
+ *
+ * Animations are keyed (e.g. by tile): starting an animation for a key which
+ * is already animated replaces the old one, so that overlapping animations of
+ * the same component never fight. At each frame, at most MAX_STEPS_PER_FRAME
+ * animations are advanced, in round robin, to bound the work done on the EDT.
+ *
+ * Must only be used from the EDT.
+ *
+ * @author Antonio
+ */
+public final class EightAnimator {
+
+    public static final int FRAME_DELAY = 50;
+    public static final int MAX_STEPS_PER_FRAME = 64;
+
+    /**
+     * An animation, advanced by one step at each frame.
+     */
+    public interface Animation {
+        /**
+         * @param frame The index of the frame (0, 1, 2...).
+         * @return True if the animation goes on, false if it is over.
+         */
+        boolean step(int frame);
+    }
+
+    private static final EightAnimator INSTANCE = new EightAnimator();
+
+    private final Timer timer;
+
+    // Active animations by key, and the order in which they are advanced
+    private final Map<Object, Entry> animations = new HashMap<>();
+    private final ArrayDeque<Entry> queue = new ArrayDeque<>();
+
+    private EightAnimator() {
+        this.timer = new Timer(FRAME_DELAY, e -> frame());
+    }
+
+    public static EightAnimator getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Start an animation, replacing the one with the same key (if any).
+     *
+     * @param key       The key of the animation (e.g. the animated component).
+     * @param animation The animation.
+     */
+    public void start(Object key, Animation animation) {
+        Entry entry = new Entry(key, animation);
+        Entry previous = this.animations.put(key, entry);
+        if (previous != null) {
+            previous.cancelled = true;
+        }
+        this.queue.add(entry);
+        if (!this.timer.isRunning()) {
+            this.timer.start();
+        }
+    }
+
+    /**
+     * Stop the animation with the given key (if any), leaving it as it is.
+     *
+     * @param key The key of the animation.
+     */
+    public void cancel(Object key) {
+        Entry entry = this.animations.remove(key);
+        if (entry != null) {
+            entry.cancelled = true;
+        }
+    }
+
+    /**
+     * @return The number of active animations.
+     */
+    public int getActiveAnimations() {
+        return this.animations.size();
+    }
+
+    /**
+     * Advance up to MAX_STEPS_PER_FRAME animations, putting the unfinished ones
+     * back at the end of the queue.
+     */
+    private void frame() {
+        // Replaced and cancelled entries are dropped without counting as steps
+        int queued = this.queue.size();
+        int steps = 0;
+        while (queued-- > 0 && steps < MAX_STEPS_PER_FRAME) {
+            Entry entry = this.queue.poll();
+            if (entry.cancelled) {
+                continue;
+            }
+            steps++;
+            if (entry.animation.step(entry.frame++)) {
+                this.queue.add(entry);
+            } else {
+                this.animations.remove(entry.key);
+            }
+        }
+
+        if (this.queue.isEmpty()) {
+            this.timer.stop();
+        }
+    }
+
+    private static final class Entry {
+        final Object key;
+        final Animation animation;
+        int frame;
+        boolean cancelled;
+
+        Entry(Object key, Animation animation) {
+            this.key = key;
+            this.animation = animation;
+        }
+    }
+}
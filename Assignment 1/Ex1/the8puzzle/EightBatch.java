@@ -0,0 +1,244 @@
+package the8puzzle;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Headless batch solver for the EightPuzzle game, to benchmark and stress the
+ * puzzle logic.
+ *
+ * Boards are generated (or read from a file, one per line, as 9 labels
+ * separated by spaces or commas, or as 9 digits), solved in parallel on a
+ * fork-join pool, and every solution is checked by replaying it on an
+ * EightState. It reports throughput, latency percentiles, nodes expanded and
+ * peak heap usage.
+ *
+ * Usage: EightBatch [-n count] [-s seed] [-f file] [-t threads]
+ * [-a A_STAR|IDA_STAR] [-p (no pattern database)]
+ *
+ * @author Antonio
+ */
+public class EightBatch {
+
+    private static final int DEFAULT_COUNT = 100000;
+    private static final double[] PERCENTILES = { 50, 90, 99, 99.9 };
+    private static final String[] PERCENTILE_NAMES = { "p50", "p90", "p99", "p99.9" };
+    private static final String USAGE = "Usage: EightBatch [-n count] [-s seed] [-f file] [-t threads]"
+            + " [-a A_STAR|IDA_STAR] [-p]";
+
+    // Results, by board
+    private final long[] boards;
+    private final long[] latencies;
+    private final long[] nodes;
+    private final int[] lengths;
+
+    private EightBatch(long[] boards) {
+        this.boards = boards;
+        this.latencies = new long[boards.length];
+        this.nodes = new long[boards.length];
+        this.lengths = new int[boards.length];
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException, ExecutionException {
+        System.setProperty("java.awt.headless", "true");
+
+        int count = DEFAULT_COUNT;
+        long seed = 0;
+        String file = null;
+        int threads = Runtime.getRuntime().availableProcessors();
+        EightSolver.Algorithm algorithm = EightSolver.Algorithm.IDA_STAR;
+        boolean usePatternDatabase = true;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "-n":
+                        count = Integer.parseInt(argument(args, ++i));
+                        break;
+                    case "-s":
+                        seed = Long.parseLong(argument(args, ++i));
+                        break;
+                    case "-f":
+                        file = argument(args, ++i);
+                        break;
+                    case "-t":
+                        threads = Integer.parseInt(argument(args, ++i));
+                        break;
+                    case "-a":
+                        algorithm = EightSolver.Algorithm.valueOf(argument(args, ++i));
+                        break;
+                    case "-p":
+                        usePatternDatabase = false;
+                        break;
+                    default:
+                        exitWithUsage("Unknown option: " + args[i]);
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            // Numbers which cannot be parsed, and unknown algorithms
+            exitWithUsage("Invalid argument: " + e.getMessage());
+        }
+        if (count <= 0 || threads <= 0) {
+            exitWithUsage("Count and threads must be positive");
+        }
+
+        long[] boards = file != null ? read(file) : new EightGenerator(seed).nextBoards(count);
+        if (boards.length == 0) {
+            System.err.println("No boards to solve");
+            return;
+        }
+        EightBatch batch = new EightBatch(boards);
+
+        // Warm up the pattern database outside of the measures
+        new EightSolver(algorithm, usePatternDatabase).solve(EightState.GOAL);
+        resetPeakMemory();
+
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        long start = System.nanoTime();
+        int failures = batch.solve(pool, algorithm, usePatternDatabase);
+        long elapsed = System.nanoTime() - start;
+        pool.shutdown();
+
+        batch.report(threads, elapsed, failures);
+    }
+
+    /**
+     * @return The value of the option before index i, if given.
+     */
+    private static String argument(String[] args, int i) {
+        if (i >= args.length) {
+            exitWithUsage("Missing value of " + args[i - 1]);
+        }
+        return args[i];
+    }
+
+    /**
+     * Print the error and the usage, and exit with status 1.
+     */
+    private static void exitWithUsage(String error) {
+        System.err.println(error);
+        System.err.println(USAGE);
+        System.exit(1);
+    }
+
+    /**
+     * Read the boards of a file. Invalid lines (not 9 labels, or not a
+     * permutation of 0...8) are reported on the standard error, with their
+     * line number, and skipped.
+     *
+     * @param file A file with one board per line.
+     * @return The packed boards.
+     */
+    private static long[] read(String file) throws IOException {
+        List<String> lines = Files.readAllLines(Paths.get(file));
+        long[] boards = new long[lines.size()];
+        int count = 0;
+        int skipped = 0;
+        for (int i = 0; i < lines.size(); i++) {
+            String line = lines.get(i).trim();
+            if (line.isEmpty()) {
+                continue;
+            }
+
+            String[] tokens = line.contains(",") || line.contains(" ") ? line.split("[,\\s]+") : line.split("");
+            try {
+                int[] labels = Arrays.stream(tokens).mapToInt(Integer::parseInt).toArray();
+                long board = new EightState(labels).getBoard();
+                boards[count++] = board;
+            } catch (IllegalArgumentException e) {
+                // NumberFormatException is an IllegalArgumentException too
+                System.err.println(file + ":" + (i + 1) + ": invalid board, skipped: " + e.getMessage());
+                skipped++;
+            }
+        }
+
+        if (skipped > 0) {
+            System.err.println("Skipped " + skipped + " invalid boards");
+        }
+        return Arrays.copyOf(boards, count);
+    }
+
+    /**
+     * Solve all the boards in parallel, with one solver per worker thread.
+     *
+     * @return The number of wrong solutions.
+     */
+    private int solve(ForkJoinPool pool, EightSolver.Algorithm algorithm, boolean usePatternDatabase)
+            throws InterruptedException, ExecutionException {
+        ThreadLocal<EightSolver> solvers = ThreadLocal
+                .withInitial(() -> new EightSolver(algorithm, usePatternDatabase));
+
+        return pool.submit(() -> IntStream.range(0, this.boards.length).parallel().map(i -> {
+            EightSolver solver = solvers.get();
+            long start = System.nanoTime();
+            int[] moves = solver.solve(this.boards[i]);
+            this.latencies[i] = System.nanoTime() - start;
+            this.nodes[i] = solver.getExpandedNodes();
+
+            // Check the solution with the rules of the game
+            boolean solvable = EightSolver.isSolvable(this.boards[i]);
+            if (moves == null) {
+                this.lengths[i] = -1;
+                return solvable ? 1 : 0;
+            }
+            this.lengths[i] = moves.length;
+            EightState state = new EightState(EightState.unpack(this.boards[i]));
+            for (int position : moves) {
+                if (!state.move(position)) {
+                    return 1;
+                }
+            }
+            return state.isSolved() ? 0 : 1;
+        }).sum()).get();
+    }
+
+    private void report(int threads, long elapsed, int failures) {
+        int solved = (int) Arrays.stream(this.lengths).filter(length -> length >= 0).count();
+        double seconds = elapsed / 1e9;
+        System.out.printf("Boards: %d (%d solved, %d unsolvable, %d wrong solutions)%n", this.boards.length, solved,
+                this.boards.length - solved, failures);
+        System.out.printf("Threads: %d, elapsed: %.1f ms, throughput: %.0f boards/s%n", threads, seconds * 1e3,
+                this.boards.length / seconds);
+
+        long[] sorted = this.latencies.clone();
+        Arrays.sort(sorted);
+        StringBuilder latency = new StringBuilder("Latency (us):");
+        for (int p = 0; p < PERCENTILES.length; p++) {
+            int index = (int) Math.ceil(PERCENTILES[p] / 100 * sorted.length) - 1;
+            latency.append(String.format(" %s %.1f", PERCENTILE_NAMES[p], sorted[Math.max(index, 0)] / 1e3));
+        }
+        latency.append(String.format(" max %.1f", sorted[sorted.length - 1] / 1e3));
+        System.out.println(latency);
+
+        long totalNodes = Arrays.stream(this.nodes).sum();
+        System.out.printf("Nodes expanded: %d (%.1f per board)%n", totalNodes, (double) totalNodes / this.boards.length);
+        System.out.printf("Moves: %.2f per solved board, max %d%n",
+                Arrays.stream(this.lengths).filter(length -> length >= 0).average().orElse(0),
+                Arrays.stream(this.lengths).max().orElse(0));
+        System.out.printf("Peak heap: %.1f MiB%n", peakMemory() / (1024.0 * 1024.0));
+    }
+
+    private static void resetPeakMemory() {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pool.resetPeakUsage();
+            }
+        }
+    }
+
+    /**
+     * @return The sum of the peak usages of the heap pools, in bytes.
+     */
+    private static long peakMemory() {
+        return ManagementFactory.getMemoryPoolMXBeans().stream().filter(pool -> pool.getType() == MemoryType.HEAP)
+                .mapToLong(pool -> pool.getPeakUsage().getUsed()).sum();
+    }
+}
@@ -1,37 +1,44 @@
 package the8puzzle;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+
 /**
  * The main board for the EightPuzzle game.
  *
  * @author Antonio
  */
 public class EightBoard extends javax.swing.JFrame {
-    private EightTile eightTile1;
-    private EightTile eightTile2;
-    private EightTile eightTile3;
-    private EightTile eightTile4;
-    private EightTile eightTile5;
-    private EightTile eightTile6;
-    private EightTile eightTile7;
-    private EightTile eightTile8;
-    private EightTile eightTile9;
+    private EightTile[] eightTiles;
     private EightStatus eightStatus;
     private javax.swing.JButton restartButton;
     private javax.swing.JButton flipButton;
+    private javax.swing.JButton hintButton;
 
-    private EightTile[] eightTiles;
     private EightController eightController;
 
     /**
      * Initialise the board and start a new game.
      */
     public EightBoard() {
+        this(new EightController());
+
+        // Start a New Game
+        eightController.startNewGame();
+    }
+
+    /**
+     * Initialise the board on the given controller, without starting a game
+     * (e.g. to replay a journal).
+     *
+     * @param controller The controller.
+     */
+    public EightBoard(EightController controller) {
         initComponents();
 
         // Initialise eightController and register listeners
-        eightTiles = new EightTile[] { eightTile1, eightTile2, eightTile3, eightTile4, eightTile5, eightTile6,
-                eightTile7, eightTile8, eightTile9 };
-        eightController = new EightController();
+        eightController = controller;
 
         for (EightTile eightTile : eightTiles) {
             eightTile.addVetoableChangeListener(eightController);
@@ -40,8 +47,9 @@ public class EightBoard extends javax.swing.JFrame {
 
         eightController.addStatusListener(eightStatus);
 
-        // Start a New Game
-        eightController.startNewGame();
+        // Show the remaining moves once the distance table is loaded
+        EightDistances.loadDefault().thenAccept(
+                distances -> java.awt.EventQueue.invokeLater(() -> controller.setDistances(distances)));
     }
 
     /**
@@ -51,30 +59,20 @@ public class EightBoard extends javax.swing.JFrame {
      */
     private void initComponents() {
 
-        eightTile1 = new EightTile(1);
-        eightTile2 = new EightTile(2);
-        eightTile3 = new EightTile(3);
-        eightTile4 = new EightTile(4);
-        eightTile5 = new EightTile(5);
-        eightTile6 = new EightTile(6);
-        eightTile7 = new EightTile(7);
-        eightTile8 = new EightTile(8);
-        eightTile9 = new EightTile(9);
+        eightTiles = new EightTile[EightState.CELLS];
+        for (int i = 0; i < eightTiles.length; i++) {
+            eightTiles[i] = new EightTile(i + 1);
+        }
         eightStatus = new EightStatus();
         restartButton = new javax.swing.JButton();
         flipButton = new javax.swing.JButton();
+        hintButton = new javax.swing.JButton();
 
         setDefaultCloseOperation(javax.swing.WindowConstants.EXIT_ON_CLOSE);
-        getContentPane().setLayout(new java.awt.GridLayout(4, 3));
-        getContentPane().add(eightTile1);
-        getContentPane().add(eightTile2);
-        getContentPane().add(eightTile3);
-        getContentPane().add(eightTile4);
-        getContentPane().add(eightTile5);
-        getContentPane().add(eightTile6);
-        getContentPane().add(eightTile7);
-        getContentPane().add(eightTile8);
-        getContentPane().add(eightTile9);
+        getContentPane().setLayout(new java.awt.GridLayout(EightState.SIDE + 2, EightState.SIDE));
+        for (EightTile eightTile : eightTiles) {
+            getContentPane().add(eightTile);
+        }
         getContentPane().add(eightStatus);
 
         restartButton.setText("RESTART");
@@ -93,6 +91,14 @@ public class EightBoard extends javax.swing.JFrame {
         });
         getContentPane().add(flipButton);
 
+        hintButton.setText("HINT");
+        hintButton.addActionListener(new java.awt.event.ActionListener() {
+            public void actionPerformed(java.awt.event.ActionEvent evt) {
+                hintButtonActionPerformed(evt);
+            }
+        });
+        getContentPane().add(hintButton);
+
         pack();
     }
 
@@ -101,17 +107,35 @@ public class EightBoard extends javax.swing.JFrame {
     }
 
     private void flipButtonActionPerformed(java.awt.event.ActionEvent evt) {
-        eightController.flip(eightTile1.getTileLabel(), eightTile2.getTileLabel());
+        eightController.flip();
+    }
+
+    private void hintButtonActionPerformed(java.awt.event.ActionEvent evt) {
+        eightController.hint();
     }
 
     /**
-     * @param args the command line arguments
+     * @param args Optional path of a journal where the games are recorded.
      */
-    public static void main(String args[]) {
+    public static void main(String args[]) throws IOException {
+        EightController controller = new EightController();
+        if (args.length > 0) {
+            EightJournal journal = new EightJournal(Paths.get(args[0]), controller.getSeed());
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    journal.close();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }));
+            controller.setJournal(journal);
+        }
+
         /* Create and display the form */
         java.awt.EventQueue.invokeLater(new Runnable() {
             public void run() {
-                new EightBoard().setVisible(true);
+                new EightBoard(controller).setVisible(true);
+                controller.startNewGame();
             }
         });
     }
@@ -0,0 +1,232 @@
+package the8puzzle;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+/**
+ * A blocking client of EightServer.
+ *
+ * Requests are buffered by send and written by flush (or when the buffer is
+ * full), so that many of them can be pipelined; responses are then read, in
+ * order, by receive. The call methods do all the three steps at once.
+ *
+ * At most MAX_IN_FLIGHT requests are left unanswered: when there are more,
+ * send reads the oldest response and keeps it for receive. Otherwise a deep
+ * pipeline would fill the server output, the server would stop reading, and
+ * both sides would block writing.
+ *
+ * The main method is a load generator, playing random moves on many games at
+ * the same time.
+ *
+ * @author Antonio
+ */
+public class EightClient implements Closeable {
+
+    /**
+     * Maximum number of requests sent but not answered yet. Their responses
+     * (12 KiB) fit in the output the server keeps for a connection.
+     */
+    public static final int MAX_IN_FLIGHT = 1 << 10;
+
+    private static final int BUFFER_SIZE = 1 << 12;
+
+    private final SocketChannel channel;
+    private final ByteBuffer output = ByteBuffer.allocate(BUFFER_SIZE);
+    private final ByteBuffer input = ByteBuffer.allocate(BUFFER_SIZE);
+
+    // Requests whose response has not been read yet, and responses read in
+    // advance by send
+    private int inFlight;
+    private final ArrayDeque<Response> received = new ArrayDeque<>();
+
+    /**
+     * A response of the server.
+     */
+    public static final class Response {
+        private final byte opcode;
+        private final byte status;
+        private final int value;
+        private final long board;
+
+        private Response(byte opcode, byte status, int value, long board) {
+            this.opcode = opcode;
+            this.status = status;
+            this.value = value;
+            this.board = board;
+        }
+
+        public byte getOpcode() {
+            return this.opcode;
+        }
+
+        /**
+         * @return EightServer.OK, VETOED or ERROR.
+         */
+        public byte getStatus() {
+            return this.status;
+        }
+
+        /**
+         * @return The moves remaining to solve the game (-1 if it cannot be
+         *         solved), or the label of the hint.
+         */
+        public int getValue() {
+            return this.value;
+        }
+
+        /**
+         * @return The packed board after the request.
+         */
+        public long getBoard() {
+            return this.board;
+        }
+    }
+
+    public EightClient(String host, int port) throws IOException {
+        this.channel = SocketChannel.open(new InetSocketAddress(host, port));
+        this.channel.socket().setTcpNoDelay(true);
+        this.input.flip();
+    }
+
+    /**
+     * Load generator: each connection starts a game, then sends rounds of
+     * pipelined random moves, reading the responses at the end of each round.
+     *
+     * @param args Port, connections, rounds and moves per round (all optional).
+     */
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : EightServer.DEFAULT_PORT;
+        int connections = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        int rounds = args.length > 2 ? Integer.parseInt(args[2]) : 100;
+        int depth = args.length > 3 ? Integer.parseInt(args[3]) : 32;
+
+        EightClient[] clients = new EightClient[connections];
+        for (int c = 0; c < connections; c++) {
+            clients[c] = new EightClient("localhost", port);
+        }
+
+        AtomicLong requests = new AtomicLong();
+        AtomicLong vetoed = new AtomicLong();
+        long start = System.nanoTime();
+        IntStream.range(0, connections).parallel().forEach(c -> {
+            SplittableRandom random = new SplittableRandom(c);
+            try {
+                clients[c].call(EightServer.NEW_GAME);
+                requests.incrementAndGet();
+                for (int round = 0; round < rounds; round++) {
+                    for (int i = 0; i < depth; i++) {
+                        clients[c].send(EightServer.MOVE, 1 + random.nextInt(EightState.CELLS));
+                    }
+                    clients[c].flush();
+                    for (int i = 0; i < depth; i++) {
+                        if (clients[c].receive().getStatus() == EightServer.VETOED) {
+                            vetoed.incrementAndGet();
+                        }
+                    }
+                    requests.addAndGet(depth);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        for (EightClient client : clients) {
+            client.close();
+        }
+        System.out.printf("%d connections, %d requests (%d vetoed moves) in %.1f ms: %.0f requests/s%n", connections,
+                requests.get(), vetoed.get(), seconds * 1e3, requests.get() / seconds);
+    }
+
+    /**
+     * Buffer a request without arguments.
+     */
+    public void send(byte opcode) throws IOException {
+        ensureRemaining(2);
+        this.output.put((byte) 1).put(opcode);
+        this.inFlight++;
+    }
+
+    /**
+     * Buffer a request with one argument (e.g. MOVE and the position).
+     */
+    public void send(byte opcode, int argument) throws IOException {
+        ensureRemaining(3);
+        this.output.put((byte) 2).put(opcode).put((byte) argument);
+        this.inFlight++;
+    }
+
+    private void ensureRemaining(int bytes) throws IOException {
+        if (this.inFlight == MAX_IN_FLIGHT) {
+            // Make room for the request, keeping the response for receive
+            flush();
+            this.received.add(read());
+        }
+        if (this.output.remaining() < bytes) {
+            flush();
+        }
+    }
+
+    /**
+     * Write all the buffered requests.
+     */
+    public void flush() throws IOException {
+        this.output.flip();
+        while (this.output.hasRemaining()) {
+            this.channel.write(this.output);
+        }
+        this.output.clear();
+    }
+
+    /**
+     * Wait for the response to the oldest request still unanswered.
+     */
+    public Response receive() throws IOException {
+        Response response = this.received.poll();
+        return response != null ? response : read();
+    }
+
+    /**
+     * Read the next response from the channel.
+     */
+    private Response read() throws IOException {
+        while (this.input.remaining() < EightServer.RESPONSE_LENGTH) {
+            this.input.compact();
+            int read = this.channel.read(this.input);
+            this.input.flip();
+            if (read == -1) {
+                throw new EOFException("Connection closed by the server");
+            }
+        }
+
+        this.input.get(); // Length
+        this.inFlight--;
+        return new Response(this.input.get(), this.input.get(), this.input.get(), this.input.getLong());
+    }
+
+    public Response call(byte opcode) throws IOException {
+        send(opcode);
+        flush();
+        return receive();
+    }
+
+    public Response call(byte opcode, int argument) throws IOException {
+        send(opcode, argument);
+        flush();
+        return receive();
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.channel.close();
+    }
+}
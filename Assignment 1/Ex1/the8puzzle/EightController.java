@@ -9,23 +9,34 @@ import java.beans.PropertyChangeListener;
 import java.beans.PropertyChangeSupport;
 import java.beans.PropertyVetoException;
 import java.beans.VetoableChangeListener;
-import java.util.Collections;
-import java.util.List;
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
+import java.util.SplittableRandom;
 
 /**
  * The controller for the EightPuzzle game.
  *
+ * The remaining moves and the hints come from a distance table, which is
+ * given with setDistances (e.g. once EightDistances.loadDefault completes).
+ * Until then, no "movesRemaining" event is fired, and a hint asked fires the
+ * "searching" event and is given when the table is set.
+ *
  * @author Antonio
  */
 public class EightController implements VetoableChangeListener {
 
     // Game logic
-    private int holePosition = -1;
+    private final EightState state = new EightState();
+    private final EightGenerator generator;
+    private final long seed;
+
+    // Distance table (null until set), and whether a hint waits for it
+    private EightDistances distances;
+    private boolean hintPending;
 
-    // Listeners
-    private final PropertyChangeSupport tilesSupport;
+    // Journal of the games, if recording
+    private EightJournal journal;
+
+    // Listeners (tiles are indexed by position - 1)
+    private final EightTileListener[] tileListeners = new EightTileListener[EightState.CELLS];
     private final PropertyChangeSupport statusSupport;
 
     // Events
@@ -34,19 +45,44 @@ public class EightController implements VetoableChangeListener {
     public static final String EVENT_NEWGAME = "startNewGame";
     public static final String EVENT_MOVEVETOED = "moveVetoed";
     public static final String EVENT_MOVEALLOWED = "moveAllowed";
-    public static final String EVENT_SETLABEL = "setLabel";
+    public static final String EVENT_HINT = "hint";
+    public static final String EVENT_REMAINING = "movesRemaining";
+    public static final String EVENT_SEARCHING = "searching";
 
     public EightController() {
-        this.tilesSupport = new PropertyChangeSupport(this);
+        this(new SplittableRandom().nextLong());
+    }
+
+    /**
+     * @param seed Seed of the random generator, so that the sequence of games
+     *             can be reproduced.
+     */
+    public EightController(long seed) {
+        this.seed = seed;
+        this.generator = new EightGenerator(seed);
         this.statusSupport = new PropertyChangeSupport(this);
     }
 
-    public void addTileListener(PropertyChangeListener listener) {
-        this.tilesSupport.addPropertyChangeListener(listener);
+    /**
+     * Register the listener of a position, replacing the previous one (if any).
+     * It is immediately notified of the current label.
+     *
+     * @param listener The listener.
+     */
+    public void addTileListener(EightTileListener listener) {
+        int position = listener.getPosition();
+        if (position < 1 || position > EightState.CELLS) {
+            throw new IllegalArgumentException("Invalid tile position: " + position);
+        }
+        this.tileListeners[position - 1] = listener;
+        listener.setTileLabel(this.state.getLabel(position));
     }
 
-    public void removeTileListener(PropertyChangeListener listener) {
-        this.tilesSupport.removePropertyChangeListener(listener);
+    public void removeTileListener(EightTileListener listener) {
+        int position = listener.getPosition();
+        if (position >= 1 && position <= EightState.CELLS && this.tileListeners[position - 1] == listener) {
+            this.tileListeners[position - 1] = null;
+        }
     }
 
     public void addStatusListener(PropertyChangeListener listener) {
@@ -58,89 +94,190 @@ public class EightController implements VetoableChangeListener {
     }
 
     /**
-     * @return a random permutation of 0...8 to decide initial state of the
-     *         game.
+     * @return The seed of the random generator.
+     */
+    public long getSeed() {
+        return this.seed;
+    }
+
+    /**
+     * Start (or stop, if null) recording the games into a journal. The current
+     * game is recorded as a new game, so that the journal is self-contained.
+     *
+     * @param journal The journal, which is not closed by the controller.
+     */
+    public void setJournal(EightJournal journal) {
+        this.journal = journal;
+        if (journal != null) {
+            journal.recordNewGame(this.state.getBoard());
+        }
+    }
+
+    /**
+     * @return a copy of the current state of the game, which can be used to
+     *         simulate moves without affecting it.
+     */
+    public EightState getState() {
+        return new EightState(this.state);
+    }
+
+    /**
+     * @return a random solvable (and not already solved) permutation of 0...8
+     *         to decide initial state of the game.
      */
     private int[] generatePermutation() {
-        List<Integer> intList = IntStream.rangeClosed(0, 8).boxed().collect(Collectors.toList());
-        Collections.shuffle(intList);
-        return intList.stream().mapToInt(i -> i).toArray();
+        int[] permutation = new int[EightState.CELLS];
+        do {
+            this.generator.nextPermutation(permutation);
+        } while (EightState.pack(permutation) == EightState.GOAL);
+        return permutation;
     }
 
     /**
-     * Shuffle the tiles labels and fire the "startNewGame" event.
+     * Shuffle the tiles labels, notify every tile and fire the "startNewGame"
+     * event.
      */
     public void startNewGame() {
-        int[] permutationLabels = generatePermutation();
+        startGame(EightState.pack(generatePermutation()));
+    }
 
-        // Save the hole position
-        for (int i = 0; i < permutationLabels.length; i++) {
-            if (permutationLabels[i] == 0) {
-                this.holePosition = i + 1;
-                break;
-            }
+    /**
+     * Start a game from the given board (e.g. to replay a recorded one),
+     * notify every tile and fire the "startNewGame" event.
+     *
+     * @param board The packed initial board.
+     */
+    public void startGame(long board) {
+        this.state.setLabels(EightState.unpack(board));
+        this.hintPending = false;
+        if (this.journal != null) {
+            this.journal.recordNewGame(board);
         }
 
-        this.tilesSupport.firePropertyChange(EVENT_NEWGAME, null, permutationLabels);
+        for (int position = 1; position <= EightState.CELLS; position++) {
+            notifyTile(position, this.state.getLabel(position));
+        }
         this.statusSupport.firePropertyChange(EVENT_NEWGAME, null, null);
+        fireRemainingMoves();
     }
 
     /**
-     * @param tilePosition1 The position of the first tile.
-     * @param tilePosition2 The position of the second tile.
-     * @return True if the positions are close (distant 1 either horizontally or
-     *         vertically, but not both at the same time), false otherwise.
+     * Notify the listener of a position (if any) of its new label.
      */
-    private boolean positionsAreClose(int tilePosition1, int tilePosition2) {
-        tilePosition1 -= 1;
-        tilePosition2 -= 1;
-
-        int horizontal1 = tilePosition1 % 3;
-        int horizontal2 = tilePosition2 % 3;
-
-        int vertical1 = Math.round(tilePosition1 / 3);
-        int vertical2 = Math.round(tilePosition2 / 3);
+    private void notifyTile(int position, int label) {
+        EightTileListener listener = this.tileListeners[position - 1];
+        if (listener != null) {
+            listener.setTileLabel(label);
+        }
+    }
 
-        int horizontalDistance = Math.abs(horizontal1 - horizontal2);
-        int verticalDistance = Math.abs(vertical1 - vertical2);
+    /**
+     * Set the distance table, fire the "movesRemaining" event and give the
+     * hint asked in the meantime (if any).
+     *
+     * @param distances The table.
+     */
+    public void setDistances(EightDistances distances) {
+        this.distances = distances;
+        fireRemainingMoves();
+        if (this.hintPending) {
+            this.hintPending = false;
+            hint();
+        }
+    }
 
-        return (horizontalDistance ^ verticalDistance) == 1;
+    /**
+     * Fire the "movesRemaining" event to the status, with the minimum number
+     * of moves needed to solve the game (-1 if it cannot be solved), if the
+     * distance table is set.
+     */
+    private void fireRemainingMoves() {
+        if (this.distances != null) {
+            this.statusSupport.firePropertyChange(EVENT_REMAINING, null, this.distances.distance(this.state.getBoard()));
+        }
     }
 
     /**
-     * Allow/deny the move of a tile, and notifies the hole to change its label.
-     * It does also notify the status of the game.
+     * Allow/deny the move of a tile, and notifies the tile and the hole to
+     * change their labels. It does also notify the status of the game.
      * 
      * @param evt The event fired by the tile.
      */
     @Override
     public void vetoableChange(PropertyChangeEvent evt) throws PropertyVetoException {
         if (evt.getPropertyName().equals(EightTile.EVENT_TILECLICKED)) {
-            int[] tileProperties = (int[]) evt.getOldValue();
-            int position = tileProperties[0];
-            int tileLabel = tileProperties[1];
-
-            if (!positionsAreClose(position, this.holePosition)) {
-                this.statusSupport.firePropertyChange(EVENT_MOVEVETOED, position, this.holePosition);
+            int position = (int) evt.getOldValue();
+            if (!move(position)) {
                 throw new PropertyVetoException(VETO_MESSAGE, evt);
             }
+        }
+    }
 
-            this.tilesSupport.firePropertyChange(EVENT_SETLABEL, null, new int[] { this.holePosition, tileLabel });
-            this.statusSupport.firePropertyChange(EVENT_MOVEALLOWED, position, this.holePosition);
-            this.holePosition = position;
+    /**
+     * Move the tile in the given position into the hole, if allowed. This is
+     * what happens when a tile is clicked, but it can also be used to drive
+     * the game programmatically.
+     *
+     * @param position The position (1...9) of the tile to move.
+     * @return True if the move has been done, false if it is not allowed.
+     */
+    public boolean move(int position) {
+        // Positions out of the board are vetoed below, but never recorded
+        if (this.journal != null && position >= 1 && position <= EightState.CELLS) {
+            this.journal.recordMove(position);
         }
+
+        int holePosition = this.state.getHolePosition();
+        if (!this.state.canMove(position)) {
+            this.statusSupport.firePropertyChange(EVENT_MOVEVETOED, position, holePosition);
+            return false;
+        }
+
+        int tileLabel = this.state.getLabel(position);
+        this.state.move(position);
+        this.hintPending = false;
+        notifyTile(holePosition, tileLabel);
+        notifyTile(position, 0);
+        this.statusSupport.firePropertyChange(EVENT_MOVEALLOWED, position, holePosition);
+        fireRemainingMoves();
+        return true;
     }
 
     /**
-     * Flip the labels of the first two tiles (if allowed).
-     * 
-     * @param labelTile1 the label of the first tile.
-     * @param labelTile2 the label of the second tile.
+     * Flip the labels of the first two tiles (if allowed, i.e. if the hole is
+     * in the last position).
+     */
+    public void flip() {
+        if (this.state.flip()) {
+            this.hintPending = false;
+            if (this.journal != null) {
+                this.journal.recordFlip();
+            }
+            notifyTile(1, this.state.getLabel(1));
+            notifyTile(2, this.state.getLabel(2));
+            fireRemainingMoves();
+        }
+    }
+
+    /**
+     * Look up the next move of an optimal solution and fire the "hint" event
+     * to the status, with the label of the tile to be moved (0 if the game is
+     * already solved, -1 if it cannot be solved without flipping). If the
+     * distance table is not set yet, fire the "searching" event instead, and
+     * the hint once it is (unless the game changes in the meantime).
      */
-    public void flip(int labelTile1, int labelTile2) {
-        if (this.holePosition == 9) {
-            this.tilesSupport.firePropertyChange(EVENT_SETLABEL, null, new int[] { 1, labelTile2 });
-            this.tilesSupport.firePropertyChange(EVENT_SETLABEL, null, new int[] { 2, labelTile1 });
+    public void hint() {
+        int label;
+        if (this.state.isSolved()) {
+            label = 0;
+        } else if (this.distances == null) {
+            this.hintPending = true;
+            this.statusSupport.firePropertyChange(EVENT_SEARCHING, null, null);
+            return;
+        } else {
+            int position = this.distances.hint(this.state.getBoard());
+            label = position == -1 ? -1 : this.state.getLabel(position);
         }
+        this.statusSupport.firePropertyChange(EVENT_HINT, null, label);
     }
 }
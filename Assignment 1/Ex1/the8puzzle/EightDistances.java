@@ -0,0 +1,299 @@
+package the8puzzle;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.zip.CRC32;
+import java.util.stream.IntStream;
+
+/**
+ * Exact distance from the goal of every reachable state of the EightPuzzle
+ * game, one byte per state.
+ *
+ * States are indexed with a perfect hash: the Lehmer code of the board, read
+ * in an order which ends with two opposite corners (positions 1 and 9). Since
+ * swapping them always changes solvability, the two boards with ranks 2k and
+ * 2k + 1 are one solvable and one not, and k indexes the 9!/2 solvable boards.
+ *
+ * The table is computed with a level-synchronous parallel BFS from the goal,
+ * and can be stored in a file (by main) which is memory-mapped when loaded. A
+ * file is only used if the goal has distance 0, no state is farther than
+ * MAX_DISTANCE and the whole table matches CHECKSUM; otherwise the table is
+ * computed again, in memory only.
+ *
+ * The default file is given by the system property PATH_PROPERTY, or is
+ * DEFAULT_FILE in the user cache directory ($XDG_CACHE_HOME, or ~/.cache).
+ * The default table is loaded on a background thread, the first time it is
+ * asked for.
+ *
+ * @author Antonio
+ */
+public class EightDistances {
+
+    public static final int STATES = 181440;
+    public static final String DEFAULT_FILE = "eight_distances.bin";
+    public static final String PATH_PROPERTY = "the8puzzle.distances";
+
+    /**
+     * Distance of the farthest solvable boards.
+     */
+    public static final int MAX_DISTANCE = 31;
+
+    /**
+     * CRC-32 of the whole table.
+     */
+    public static final long CHECKSUM = 0x9B1417ABL;
+
+    /**
+     * Distance of boards which cannot be solved.
+     */
+    public static final int UNREACHABLE = -1;
+
+    private static final int CELLS = EightState.CELLS;
+    private static final byte UNVISITED = (byte) 0xFF;
+
+    // Order in which the cells are read by the Lehmer code
+    private static final int[] ORDER = { 1, 2, 3, 4, 5, 6, 7, 0, 8 };
+    private static final int[] FACTORIAL = { 1, 1, 2, 6, 24, 120, 720, 5040, 40320 };
+
+    private final ByteBuffer distances;
+
+    /**
+     * The table stored in the default file, loaded on first use.
+     */
+    private static final class DefaultHolder {
+        static final CompletableFuture<EightDistances> INSTANCE = CompletableFuture
+                .supplyAsync(() -> open(defaultPath()));
+    }
+
+    private EightDistances(ByteBuffer distances) {
+        this.distances = distances;
+    }
+
+    /**
+     * Start loading (or computing) the table stored in the default file on a
+     * background thread, if not done yet. The table is loaded once and shared;
+     * it is read-only, so it can be used by any thread.
+     *
+     * @return The table, completed when loaded.
+     */
+    public static CompletableFuture<EightDistances> loadDefault() {
+        return DefaultHolder.INSTANCE;
+    }
+
+    /**
+     * @return The table stored in the default file, waiting for it to be
+     *         loaded (or computed).
+     */
+    public static EightDistances getDefault() {
+        return loadDefault().join();
+    }
+
+    /**
+     * @return The path of the file of the default table: the value of the
+     *         system property PATH_PROPERTY if set, otherwise DEFAULT_FILE in
+     *         the user cache directory.
+     */
+    public static Path defaultPath() {
+        String property = System.getProperty(PATH_PROPERTY);
+        if (property != null && !property.isEmpty()) {
+            return Paths.get(property);
+        }
+        String cacheHome = System.getenv("XDG_CACHE_HOME");
+        Path cache = cacheHome != null && !cacheHome.isEmpty() ? Paths.get(cacheHome)
+                : Paths.get(System.getProperty("user.home"), ".cache");
+        return cache.resolve("the8puzzle").resolve(DEFAULT_FILE);
+    }
+
+    /**
+     * Precompute the table and write it to a file.
+     *
+     * @param args Optional path of the file (the default path otherwise).
+     */
+    public static void main(String[] args) throws IOException {
+        Path path = args.length > 0 ? Paths.get(args[0]) : defaultPath();
+        long start = System.nanoTime();
+        byte[] table = compute();
+        write(path, table);
+        System.out.printf("Computed %d states in %.1f ms, written to %s%n", STATES, (System.nanoTime() - start) / 1e6,
+                path.toAbsolutePath());
+    }
+
+    /**
+     * Memory-map the table stored in a file. If the file is missing or
+     * invalid, the table is computed in memory (the file is left as it is).
+     *
+     * @param path The path of the file.
+     * @return The table.
+     */
+    public static EightDistances open(Path path) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() == STATES) {
+                ByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, STATES);
+                if (isValid(mapped)) {
+                    return new EightDistances(mapped);
+                }
+            }
+        } catch (IOException e) {
+            // Missing or unreadable: compute it below
+        }
+
+        return new EightDistances(ByteBuffer.wrap(compute()));
+    }
+
+    /**
+     * @param table A table of STATES distances.
+     * @return True if the goal has distance 0, the maximum distance is
+     *         MAX_DISTANCE and the checksum matches.
+     */
+    private static boolean isValid(ByteBuffer table) {
+        if (table.get(index(EightState.GOAL)) != 0) {
+            return false;
+        }
+        int max = 0;
+        for (int i = 0; i < STATES; i++) {
+            max = Math.max(max, table.get(i) & 0xFF);
+        }
+        if (max != MAX_DISTANCE) {
+            return false;
+        }
+        CRC32 crc = new CRC32();
+        crc.update(table.duplicate());
+        return crc.getValue() == CHECKSUM;
+    }
+
+    /**
+     * Write the table to a temporary file next to the given one, then move it
+     * in place, so that a partially written table is never seen.
+     */
+    private static void write(Path path, byte[] table) throws IOException {
+        Path directory = path.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temporary = Files.createTempFile(directory, DEFAULT_FILE, ".tmp");
+        try {
+            Files.write(temporary, table);
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * @param board A packed board.
+     * @return The minimum number of moves to solve it, or UNREACHABLE.
+     */
+    public int distance(long board) {
+        if (!EightSolver.isSolvable(board)) {
+            return UNREACHABLE;
+        }
+        return this.distances.get(index(board)) & 0xFF;
+    }
+
+    /**
+     * @param board A packed board.
+     * @return The position (1...9) of the tile to be moved next by an optimal
+     *         solution, or -1 if the board is solved or cannot be solved.
+     */
+    public int hint(long board) {
+        int distance = distance(board);
+        if (distance == UNREACHABLE || distance == 0) {
+            return -1;
+        }
+
+        int hole = EightState.holeIndex(board);
+        for (int tile : EightState.neighbours(hole)) {
+            if ((this.distances.get(index(EightState.swapWithHole(board, hole, tile))) & 0xFF) == distance - 1) {
+                return tile + 1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @param board A packed solvable board.
+     * @return Its index in 0...STATES-1.
+     */
+    public static int index(long board) {
+        int rank = 0;
+        int used = 0;
+        for (int k = 0; k < CELLS; k++) {
+            int label = EightState.labelAt(board, ORDER[k]);
+            int digit = label - Integer.bitCount(used & ((1 << label) - 1));
+            rank += digit * FACTORIAL[CELLS - 1 - k];
+            used |= 1 << label;
+        }
+        return rank >>> 1;
+    }
+
+    /**
+     * @param index An index in 0...STATES-1.
+     * @return The solvable packed board with that index.
+     */
+    public static long board(int index) {
+        long board = unrank(index << 1);
+        return EightSolver.isSolvable(board) ? board : unrank((index << 1) | 1);
+    }
+
+    private static long unrank(int rank) {
+        long board = 0;
+        int used = 0;
+        for (int k = 0; k < CELLS; k++) {
+            int digit = rank / FACTORIAL[CELLS - 1 - k];
+            rank %= FACTORIAL[CELLS - 1 - k];
+
+            // The label is the digit-th unused one
+            int label = 0;
+            while ((used & (1 << label)) != 0 || digit > 0) {
+                if ((used & (1 << label)) == 0) {
+                    digit--;
+                }
+                label++;
+            }
+            used |= 1 << label;
+            board |= (long) label << (ORDER[k] << 2);
+        }
+        return board;
+    }
+
+    /**
+     * Level-synchronous BFS from the goal: at each level, all the states of
+     * the frontier are expanded in parallel. Concurrent writes of the same
+     * neighbour store the same value, so they need no synchronization.
+     *
+     * @return The distance of each state, by index.
+     */
+    public static byte[] compute() {
+        byte[] table = new byte[STATES];
+        Arrays.fill(table, UNVISITED);
+        table[index(EightState.GOAL)] = 0;
+
+        for (int level = 0;; level++) {
+            byte current = (byte) level;
+            byte next = (byte) (level + 1);
+            int discovered = IntStream.range(0, STATES).parallel().filter(i -> table[i] == current).map(i -> {
+                long board = board(i);
+                int hole = EightState.holeIndex(board);
+                int count = 0;
+                for (int tile : EightState.neighbours(hole)) {
+                    int neighbour = index(EightState.swapWithHole(board, hole, tile));
+                    if (table[neighbour] == UNVISITED) {
+                        table[neighbour] = next;
+                        count++;
+                    }
+                }
+                return count;
+            }).sum();
+
+            if (discovered == 0) {
+                return table;
+            }
+        }
+    }
+}
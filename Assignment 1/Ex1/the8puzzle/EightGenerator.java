@@ -0,0 +1,132 @@
+package the8puzzle;
+
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+/**
+ * Generator of random solvable boards for the EightPuzzle game.
+ *
+ * Boards are generated with a Fisher-Yates shuffle on primitive ints. If the
+ * result is not solvable, the first two tiles (ignoring the hole) are
+ * swapped: this fixes the parity and keeps the distribution uniform over the
+ * solvable boards.
+ *
+ * A generator is not thread-safe, but the batch methods split it into
+ * independent generators, one per chunk, so that the result only depends on
+ * the seed.
+ *
+ * @author Antonio
+ */
+public class EightGenerator {
+
+    private static final int SIDE = EightState.SIDE;
+    private static final int CELLS = EightState.CELLS;
+
+    // Boards generated by each parallel task of the batch methods
+    private static final int BATCH_CHUNK = 1 << 14;
+
+    private final SplittableRandom random;
+
+    // Scratch permutation, reused by every generation
+    private final int[] labels = new int[CELLS];
+
+    public EightGenerator() {
+        this(new SplittableRandom());
+    }
+
+    public EightGenerator(long seed) {
+        this(new SplittableRandom(seed));
+    }
+
+    private EightGenerator(SplittableRandom random) {
+        this.random = random;
+    }
+
+    /**
+     * @return A random solvable permutation of 0...8 (labels by position).
+     */
+    public int[] nextPermutation() {
+        int[] permutation = new int[CELLS];
+        nextPermutation(permutation);
+        return permutation;
+    }
+
+    /**
+     * Fill the array with a random solvable permutation of 0...8.
+     *
+     * @param permutation The array to be filled (of length 9).
+     */
+    public void nextPermutation(int[] permutation) {
+        for (int i = 0; i < CELLS; i++) {
+            permutation[i] = i;
+        }
+
+        // Fisher-Yates shuffle, tracking the parity of the permutation (every
+        // swap of two different cells flips it)
+        int parity = 0;
+        int hole = 0;
+        for (int i = CELLS - 1; i > 0; i--) {
+            int j = this.random.nextInt(i + 1);
+            int swap = permutation[i];
+            permutation[i] = permutation[j];
+            permutation[j] = swap;
+            parity ^= i != j ? 1 : 0;
+        }
+        while (permutation[hole] != 0) {
+            hole++;
+        }
+
+        // The goal is an even permutation of 0...8, and every move flips both
+        // the parity of the permutation and the one of the distance of the hole
+        // from its goal cell: the board is solvable iff they match
+        int holeDistance = (SIDE - 1 - hole / SIDE) + (SIDE - 1 - hole % SIDE);
+        if (parity != (holeDistance & 1)) {
+            // Swap the first two tiles which are not the hole
+            int first = permutation[0] != 0 ? 0 : 1;
+            int second = permutation[first + 1] != 0 ? first + 1 : first + 2;
+            int swap = permutation[first];
+            permutation[first] = permutation[second];
+            permutation[second] = swap;
+        }
+    }
+
+    /**
+     * @return A random solvable packed board, without allocating.
+     */
+    public long nextBoard() {
+        nextPermutation(this.labels);
+        return EightState.pack(this.labels);
+    }
+
+    /**
+     * @param count Number of boards.
+     * @return count random solvable packed boards, generated in parallel.
+     */
+    public long[] nextBoards(int count) {
+        long[] boards = new long[count];
+        nextBoards(boards);
+        return boards;
+    }
+
+    /**
+     * Fill the array with random solvable packed boards, generated in parallel.
+     *
+     * @param boards The array to be filled.
+     */
+    public void nextBoards(long[] boards) {
+        // Split the generators sequentially, so that the result only depends on
+        // the seed
+        int chunks = (boards.length + BATCH_CHUNK - 1) / BATCH_CHUNK;
+        EightGenerator[] generators = new EightGenerator[chunks];
+        for (int c = 0; c < chunks; c++) {
+            generators[c] = new EightGenerator(this.random.split());
+        }
+
+        IntStream.range(0, chunks).parallel().forEach(c -> {
+            int end = Math.min(boards.length, (c + 1) * BATCH_CHUNK);
+            for (int i = c * BATCH_CHUNK; i < end; i++) {
+                boards[i] = generators[c].nextBoard();
+            }
+        });
+    }
+}
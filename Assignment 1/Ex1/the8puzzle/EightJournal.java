@@ -0,0 +1,125 @@
+package the8puzzle;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Append-only journal of the games played with an EightController.
+ *
+ * The file starts with a header (MAGIC, VERSION and the seed of the
+ * controller), followed by one record per event:
+ * <ul>
+ * <li>a new game: NEW_GAME and the packed initial board (8 bytes);</li>
+ * <li>a move, allowed or vetoed: the position (1...9) of the clicked tile;</li>
+ * <li>a flip: FLIP.</li>
+ * </ul>
+ * So a move takes a single byte. Records are buffered, and written to the
+ * file channel when the buffer is full, on flush and on close.
+ *
+ * Records and close are guarded by the same lock, so that the journal can be
+ * closed from another thread (e.g. a shutdown hook) while the EDT is recording:
+ * records arriving after close are dropped.
+ *
+ * Recorded games can be re-run with EightReplay.
+ *
+ * @author Antonio
+ */
+public class EightJournal implements Closeable {
+
+    public static final int MAGIC = 0x384A524E; // "8JRN"
+    public static final byte VERSION = 1;
+    public static final int HEADER_SIZE = 4 + 1 + 8;
+
+    // Record codes (positions 1...9 are moves)
+    public static final byte FLIP = 0x40;
+    public static final byte NEW_GAME = (byte) 0x80;
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+    /**
+     * Create (or truncate) the journal file and write its header.
+     *
+     * @param path The path of the file.
+     * @param seed The seed of the recorded controller.
+     */
+    public EightJournal(Path path, long seed) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        this.buffer.putInt(MAGIC).put(VERSION).putLong(seed);
+    }
+
+    /**
+     * @param board The packed initial board of the new game.
+     */
+    public synchronized void recordNewGame(long board) {
+        if (!this.channel.isOpen()) {
+            return;
+        }
+        ensureRemaining(1 + 8);
+        this.buffer.put(NEW_GAME).putLong(board);
+    }
+
+    /**
+     * @param position The position (1...9) of the tile clicked, whether the
+     *                 move was allowed or not.
+     */
+    public synchronized void recordMove(int position) {
+        if (!this.channel.isOpen()) {
+            return;
+        }
+        ensureRemaining(1);
+        this.buffer.put((byte) position);
+    }
+
+    public synchronized void recordFlip() {
+        if (!this.channel.isOpen()) {
+            return;
+        }
+        ensureRemaining(1);
+        this.buffer.put(FLIP);
+    }
+
+    private void ensureRemaining(int bytes) {
+        if (this.buffer.remaining() < bytes) {
+            try {
+                flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * Write the buffered records to the file (nothing, once closed).
+     */
+    public synchronized void flush() throws IOException {
+        if (!this.channel.isOpen()) {
+            return;
+        }
+        this.buffer.flip();
+        while (this.buffer.hasRemaining()) {
+            this.channel.write(this.buffer);
+        }
+        this.buffer.clear();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (!this.channel.isOpen()) {
+            return;
+        }
+        try {
+            flush();
+        } finally {
+            this.channel.close();
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package the8puzzle;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import javax.swing.Timer;
+
+/**
+ * Replay engine for the games recorded by EightJournal.
+ *
+ * Records are applied to an EightController one at a time, either headless at
+ * full speed, or on the EDT with a given frame rate (one record per frame), so
+ * that an EightBoard shows the game. Moves go through EightController.move, so
+ * vetoed moves are vetoed again.
+ *
+ * @author Antonio
+ */
+public class EightReplay {
+
+    private static final String USAGE = "Usage: EightReplay <journal> [frames per second]";
+
+    // Records, after the header (memory-mapped)
+    private final ByteBuffer records;
+    private final long seed;
+
+    // Statistics of the records applied so far
+    private long games;
+    private long moves;
+    private long vetoedMoves;
+    private long flips;
+
+    /**
+     * @param path The path of a journal.
+     */
+    public EightReplay(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            this.records = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (this.records.remaining() < EightJournal.HEADER_SIZE || this.records.getInt() != EightJournal.MAGIC) {
+            throw new IOException("Not a journal: " + path);
+        }
+        byte version = this.records.get();
+        if (version != EightJournal.VERSION) {
+            throw new IOException("Unsupported journal version: " + version);
+        }
+        this.seed = this.records.getLong();
+    }
+
+    /**
+     * Replay a journal.
+     *
+     * @param args The path of the journal and, optionally, the frame rate: if
+     *             given, the journal is replayed on an EightBoard, otherwise it
+     *             is replayed headless at full speed.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.err.println(USAGE);
+            return;
+        }
+        int framesPerSecond = args.length > 1 ? parseFramesPerSecond(args[1]) : 0;
+        EightReplay replay = new EightReplay(Paths.get(args[0]));
+        EightController controller = new EightController(replay.getSeed());
+
+        if (framesPerSecond > 0) {
+            java.awt.EventQueue.invokeLater(new Runnable() {
+                public void run() {
+                    new EightBoard(controller).setVisible(true);
+                    replay.play(controller, framesPerSecond, () -> System.out.println(replay));
+                }
+            });
+            return;
+        }
+
+        long start = System.nanoTime();
+        replay.replay(controller);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.println(replay);
+        System.out.printf("Replayed in %.1f ms (%.0f moves/s)%n", seconds * 1e3, replay.getMoves() / seconds);
+    }
+
+    /**
+     * @return The frame rate given on the command line. If it is not a
+     *         positive integer, the usage is printed and the JVM exits.
+     */
+    private static int parseFramesPerSecond(String arg) {
+        try {
+            int framesPerSecond = Integer.parseInt(arg);
+            if (framesPerSecond > 0) {
+                return framesPerSecond;
+            }
+        } catch (NumberFormatException e) {
+            // Reported below
+        }
+        System.err.println("Frames per second must be a positive integer: " + arg);
+        System.err.println(USAGE);
+        System.exit(1);
+        return 0;
+    }
+
+    /**
+     * @return The seed of the recorded controller.
+     */
+    public long getSeed() {
+        return this.seed;
+    }
+
+    public long getGames() {
+        return this.games;
+    }
+
+    /**
+     * @return The number of moves replayed, including the vetoed ones.
+     */
+    public long getMoves() {
+        return this.moves;
+    }
+
+    public long getVetoedMoves() {
+        return this.vetoedMoves;
+    }
+
+    public long getFlips() {
+        return this.flips;
+    }
+
+    /**
+     * @return True if there are records still to be applied.
+     */
+    public boolean hasNext() {
+        return this.records.hasRemaining();
+    }
+
+    /**
+     * Go back to the first record, resetting the statistics.
+     */
+    public void rewind() {
+        this.records.position(EightJournal.HEADER_SIZE);
+        this.games = 0;
+        this.moves = 0;
+        this.vetoedMoves = 0;
+        this.flips = 0;
+    }
+
+    /**
+     * Apply the next record to the controller.
+     *
+     * @param controller The controller.
+     * @return False if there are no more records, true otherwise.
+     */
+    public boolean step(EightController controller) {
+        if (!this.records.hasRemaining()) {
+            return false;
+        }
+
+        int offset = this.records.position();
+        byte record = this.records.get();
+        if (record == EightJournal.NEW_GAME) {
+            if (this.records.remaining() < 8) {
+                throw new IllegalStateException("Truncated journal at byte " + offset);
+            }
+            controller.startGame(this.records.getLong());
+            this.games++;
+        } else if (record == EightJournal.FLIP) {
+            controller.flip();
+            this.flips++;
+        } else if (record >= 1 && record <= EightState.CELLS) {
+            if (!controller.move(record)) {
+                this.vetoedMoves++;
+            }
+            this.moves++;
+        } else {
+            throw new IllegalStateException("Invalid record " + record + " at byte " + offset);
+        }
+        return true;
+    }
+
+    /**
+     * Apply all the remaining records, at full speed.
+     *
+     * @param controller The controller.
+     */
+    public void replay(EightController controller) {
+        while (step(controller)) {
+            // Each step applies one record
+        }
+    }
+
+    /**
+     * Apply the remaining records on the EDT, one per frame. Must be called
+     * from the EDT.
+     *
+     * @param controller      The controller.
+     * @param framesPerSecond Records applied per second (positive).
+     * @param onEnd           Run (on the EDT) when all records are applied.
+     * @return The running timer, which can be stopped to pause the replay.
+     */
+    public Timer play(EightController controller, int framesPerSecond, Runnable onEnd) {
+        if (framesPerSecond <= 0) {
+            throw new IllegalArgumentException("Frames per second must be positive: " + framesPerSecond);
+        }
+        Timer timer = new Timer(Math.max(1, 1000 / framesPerSecond), null);
+        timer.addActionListener(e -> {
+            if (!step(controller)) {
+                timer.stop();
+                onEnd.run();
+            }
+        });
+        timer.start();
+        return timer;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d games, %d moves (%d vetoed), %d flips", this.games, this.moves, this.vetoedMoves,
+                this.flips);
+    }
+}
@@ -0,0 +1,402 @@
+package the8puzzle;
+
+import java.beans.PropertyChangeEvent;
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+
+/**
+ * A local TCP server to play the EightPuzzle game from other programs (bots,
+ * load generators...), without any GUI.
+ *
+ * Every connection plays its own game on its own EightController. All the
+ * connections are served by a single thread with a non-blocking selector, so
+ * thousands of games can be played at the same time.
+ *
+ * Requests are frames made of their length (1 byte, not counting itself), the
+ * opcode (1 byte) and its arguments:
+ * <ul>
+ * <li>NEW_GAME: start a new game;</li>
+ * <li>MOVE position: move the tile in position (1...9) into the hole;</li>
+ * <li>FLIP: flip the first two tiles;</li>
+ * <li>STATE: nothing, just get the state;</li>
+ * <li>HINT: get the label of the tile to be moved next.</li>
+ * </ul>
+ * Each request gets a response, in order, of RESPONSE_LENGTH bytes: the
+ * length (1 byte), the opcode of the request (1 byte), the status (OK, VETOED
+ * or ERROR, 1 byte), a value (1 signed byte: the moves remaining to solve the
+ * game, or the hint label) and the packed board (8 bytes). Clients can send
+ * any number of requests without waiting for the responses.
+ *
+ * If accepting a connection fails (e.g. because the process is out of file
+ * descriptors), the error is logged and new connections are not accepted for
+ * ACCEPT_BACKOFF_MILLIS, while the open ones keep being served. A connection
+ * whose request fails unexpectedly is closed, without affecting the others.
+ *
+ * The server can be closed from any thread: the thread running it is woken
+ * up, and closes the connections and the selector itself.
+ *
+ * @author Antonio
+ */
+public class EightServer implements Closeable {
+
+    public static final int DEFAULT_PORT = 8088;
+
+    // Opcodes
+    public static final byte NEW_GAME = 1;
+    public static final byte MOVE = 2;
+    public static final byte FLIP = 3;
+    public static final byte STATE = 4;
+    public static final byte HINT = 5;
+
+    // Statuses
+    public static final byte OK = 0;
+    public static final byte VETOED = 1;
+    public static final byte ERROR = 2;
+
+    public static final int RESPONSE_LENGTH = 1 + 1 + 1 + 1 + 8;
+
+    private static final int BUFFER_SIZE = 1 << 12;
+
+    // Responses pending on a connection before it stops reading requests
+    private static final int MAX_PENDING_OUTPUT = 1 << 16;
+
+    // Pause of the accepts after a failure
+    public static final long ACCEPT_BACKOFF_MILLIS = 100;
+
+    private final Selector selector;
+    private final ServerSocketChannel server;
+    private final SelectionKey serverKey;
+    private final EightDistances distances;
+    private volatile int connections;
+
+    // Set by close, and whether a thread is running the server
+    private volatile boolean closing;
+    private volatile boolean running;
+
+    // Time (System.nanoTime) when accepts resume, if paused
+    private boolean acceptPaused;
+    private long acceptResumeTime;
+
+    /**
+     * Open the server on the loopback interface.
+     *
+     * @param port The port (0 for any free one).
+     */
+    public EightServer(int port) throws IOException {
+        // Load the distance table now, rather than while serving the first game
+        this.distances = EightDistances.getDefault();
+
+        this.selector = Selector.open();
+        this.server = ServerSocketChannel.open();
+        this.server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 1024);
+        this.server.configureBlocking(false);
+        this.serverKey = this.server.register(this.selector, SelectionKey.OP_ACCEPT);
+    }
+
+    /**
+     * @param args Optional port (DEFAULT_PORT otherwise).
+     */
+    public static void main(String[] args) throws IOException {
+        System.setProperty("java.awt.headless", "true");
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        try (EightServer server = new EightServer(port)) {
+            System.out.println("Listening on port " + server.getPort());
+            server.run();
+        }
+    }
+
+    /**
+     * @return The port the server is listening to.
+     */
+    public int getPort() {
+        return this.server.socket().getLocalPort();
+    }
+
+    /**
+     * @return The number of open connections.
+     */
+    public int getConnections() {
+        return this.connections;
+    }
+
+    /**
+     * Serve the connections, until the server (or its channel) is closed. The
+     * connections are closed before returning.
+     */
+    public void run() throws IOException {
+        this.running = true;
+        try {
+            while (!this.closing) {
+                if (this.acceptPaused) {
+                    long millis = (this.acceptResumeTime - System.nanoTime()) / 1_000_000;
+                    if (millis <= 0) {
+                        resumeAccepts();
+                        this.selector.select();
+                    } else {
+                        this.selector.select(millis);
+                    }
+                } else {
+                    this.selector.select();
+                }
+                Iterator<SelectionKey> keys = this.selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (!key.isValid()) {
+                        continue;
+                    }
+
+                    if (key.isAcceptable()) {
+                        accept();
+                        continue;
+                    }
+                    Connection connection = (Connection) key.attachment();
+                    try {
+                        if (key.isReadable()) {
+                            connection.read();
+                        }
+                        if (key.isValid() && key.isWritable()) {
+                            connection.write();
+                        }
+                    } catch (IOException e) {
+                        connection.close();
+                    } catch (RuntimeException e) {
+                        System.err.println("Closing connection after unexpected error: " + e);
+                        connection.close();
+                    }
+                }
+            }
+        } finally {
+            this.running = false;
+            shutdown();
+        }
+    }
+
+    /**
+     * Accept all the pending connections. A failure is logged and pauses the
+     * accepts, without affecting the open connections, while a closed server
+     * channel shuts the server down.
+     */
+    private void accept() {
+        while (true) {
+            SocketChannel channel;
+            try {
+                channel = this.server.accept();
+            } catch (ClosedChannelException e) {
+                this.closing = true;
+                return;
+            } catch (IOException e) {
+                System.err.println("Cannot accept connections, retrying in " + ACCEPT_BACKOFF_MILLIS + " ms: " + e);
+                pauseAccepts();
+                return;
+            }
+            if (channel == null) {
+                return;
+            }
+
+            try {
+                channel.configureBlocking(false);
+                channel.socket().setTcpNoDelay(true);
+                SelectionKey key = channel.register(this.selector, SelectionKey.OP_READ);
+                key.attach(new Connection(channel, key));
+                this.connections++;
+            } catch (IOException e) {
+                System.err.println("Cannot set up connection: " + e);
+                closeQuietly(channel);
+            }
+        }
+    }
+
+    private void pauseAccepts() {
+        this.serverKey.interestOps(0);
+        this.acceptPaused = true;
+        this.acceptResumeTime = System.nanoTime() + ACCEPT_BACKOFF_MILLIS * 1_000_000;
+    }
+
+    private void resumeAccepts() {
+        if (this.serverKey.isValid()) {
+            this.serverKey.interestOps(SelectionKey.OP_ACCEPT);
+        }
+        this.acceptPaused = false;
+    }
+
+    private static void closeQuietly(SocketChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // Nothing else to do
+        }
+    }
+
+    /**
+     * Stop the server, closing all the connections. It can be called from any
+     * thread: if a thread is running the server, it is woken up to close them.
+     */
+    @Override
+    public void close() throws IOException {
+        this.closing = true;
+        if (this.running) {
+            this.selector.wakeup();
+        } else {
+            // Either run has not started (and will see closing) or has ended
+            shutdown();
+        }
+    }
+
+    /**
+     * Close the connections, the server channel and the selector, once.
+     */
+    private synchronized void shutdown() throws IOException {
+        if (!this.selector.isOpen()) {
+            return;
+        }
+        for (SelectionKey key : this.selector.keys()) {
+            if (key.attachment() instanceof Connection) {
+                ((Connection) key.attachment()).close();
+            }
+        }
+        try {
+            this.server.close();
+        } finally {
+            this.selector.close();
+        }
+    }
+
+    /**
+     * A connection, with its own game.
+     */
+    private final class Connection {
+        private final SocketChannel channel;
+        private final SelectionKey key;
+        private final EightController controller = new EightController();
+        private final ByteBuffer input = ByteBuffer.allocate(BUFFER_SIZE);
+        private ByteBuffer output = ByteBuffer.allocate(BUFFER_SIZE);
+
+        // Last values fired by the controller (a new controller is solved)
+        private int remainingMoves = 0;
+        private int hint = -1;
+
+        Connection(SocketChannel channel, SelectionKey key) {
+            this.channel = channel;
+            this.key = key;
+            this.controller.addStatusListener(this::statusChanged);
+            this.controller.setDistances(EightServer.this.distances);
+        }
+
+        private void statusChanged(PropertyChangeEvent evt) {
+            if (evt.getPropertyName().equals(EightController.EVENT_REMAINING)) {
+                this.remainingMoves = (int) evt.getNewValue();
+            } else if (evt.getPropertyName().equals(EightController.EVENT_HINT)) {
+                this.hint = (int) evt.getNewValue();
+            }
+        }
+
+        /**
+         * Read and serve all the complete requests.
+         */
+        void read() throws IOException {
+            if (this.channel.read(this.input) == -1) {
+                close();
+                return;
+            }
+
+            this.input.flip();
+            while (this.input.hasRemaining()) {
+                int length = this.input.get(this.input.position()) & 0xFF;
+                if (length == 0) {
+                    close();
+                    return;
+                }
+                if (this.input.remaining() < 1 + length) {
+                    break;
+                }
+                int end = this.input.position() + 1 + length;
+                this.input.get();
+                serve(this.input.get(), length - 1);
+                this.input.position(end);
+            }
+            this.input.compact();
+            write();
+        }
+
+        /**
+         * Serve a request, whose arguments are next in the input.
+         */
+        private void serve(byte opcode, int arguments) {
+            byte status = OK;
+            int value = this.remainingMoves;
+            switch (opcode) {
+                case NEW_GAME:
+                    this.controller.startNewGame();
+                    value = this.remainingMoves;
+                    break;
+                case MOVE:
+                    int position = arguments > 0 ? this.input.get() : 0;
+                    status = this.controller.move(position) ? OK : VETOED;
+                    value = this.remainingMoves;
+                    break;
+                case FLIP:
+                    status = this.controller.getState().getHolePosition() == EightState.CELLS ? OK : VETOED;
+                    this.controller.flip();
+                    value = this.remainingMoves;
+                    break;
+                case STATE:
+                    break;
+                case HINT:
+                    this.controller.hint();
+                    value = this.hint;
+                    break;
+                default:
+                    status = ERROR;
+                    value = -1;
+            }
+
+            if (this.output.remaining() < RESPONSE_LENGTH) {
+                ByteBuffer larger = ByteBuffer.allocate(this.output.capacity() * 2);
+                this.output.flip();
+                this.output = larger.put(this.output);
+            }
+            this.output.put((byte) (RESPONSE_LENGTH - 1)).put(opcode).put(status).put((byte) value)
+                    .putLong(this.controller.getState().getBoard());
+        }
+
+        /**
+         * Write as many responses as possible, then wait for the channel to be
+         * writable if some are left (and stop reading if too many are).
+         */
+        void write() throws IOException {
+            this.output.flip();
+            this.channel.write(this.output);
+            this.output.compact();
+
+            int pending = this.output.position();
+            int interests = pending < MAX_PENDING_OUTPUT ? SelectionKey.OP_READ : 0;
+            if (pending > 0) {
+                interests |= SelectionKey.OP_WRITE;
+            }
+            this.key.interestOps(interests);
+        }
+
+        void close() {
+            if (!this.channel.isOpen()) {
+                return;
+            }
+            EightServer.this.connections--;
+            this.key.cancel();
+            try {
+                this.channel.close();
+            } catch (IOException e) {
+                // Already closed
+            }
+        }
+    }
+}
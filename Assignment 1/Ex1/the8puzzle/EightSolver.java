@@ -0,0 +1,534 @@
+package the8puzzle;
+
+import java.util.Arrays;
+
+/**
+ * Optimal solver for the EightPuzzle game, working on the packed boards of
+ * EightState.
+ *
+ * Both A* and IDA* are available. The heuristic is Manhattan distance plus
+ * linear conflicts and, optionally, the sum of two disjoint additive pattern
+ * databases (tiles 1-4 and 5-8), whichever is larger.
+ *
+ * Solutions are returned as the positions (1...9) of the tiles to be moved
+ * into the hole, in order. The flip is never used.
+ *
+ * @author Antonio
+ */
+public class EightSolver {
+
+    /**
+     * Search algorithm used by the solver.
+     */
+    public enum Algorithm {
+        A_STAR, IDA_STAR
+    }
+
+    private static final int CELLS = EightState.CELLS;
+    private static final int SIDE = EightState.SIDE;
+
+    private static final int FOUND = -1;
+    private static final int INFINITY = Integer.MAX_VALUE;
+
+    /**
+     * MANHATTAN[label][index] is the distance of a tile with that label in
+     * that cell from its goal cell (0 for the hole).
+     */
+    private static final int[][] MANHATTAN = new int[CELLS][CELLS];
+
+    static {
+        for (int label = 1; label < CELLS; label++) {
+            for (int index = 0; index < CELLS; index++) {
+                int goal = label - 1;
+                MANHATTAN[label][index] = Math.abs(goal / SIDE - index / SIDE) + Math.abs(goal % SIDE - index % SIDE);
+            }
+        }
+    }
+
+    private final Algorithm algorithm;
+    private final boolean usePatternDatabase;
+
+    // Statistics of the last search
+    private long expandedNodes;
+
+    // Moves of the current IDA* path
+    private final int[] path = new int[64];
+
+    /**
+     * Creates an IDA* solver using the pattern databases.
+     */
+    public EightSolver() {
+        this(Algorithm.IDA_STAR, true);
+    }
+
+    public EightSolver(Algorithm algorithm, boolean usePatternDatabase) {
+        this.algorithm = algorithm;
+        this.usePatternDatabase = usePatternDatabase;
+    }
+
+    /**
+     * @return The number of nodes expanded by the last call to solve.
+     */
+    public long getExpandedNodes() {
+        return this.expandedNodes;
+    }
+
+    /**
+     * @param state A state of the game.
+     * @return An optimal sequence of moves solving it, or null if it is not
+     *         solvable.
+     */
+    public int[] solve(EightState state) {
+        return solve(state.getBoard());
+    }
+
+    /**
+     * @param board A packed board.
+     * @return An optimal sequence of moves solving it, or null if it is not
+     *         solvable.
+     */
+    public int[] solve(long board) {
+        this.expandedNodes = 0;
+        if (!isSolvable(board)) {
+            return null;
+        }
+        return this.algorithm == Algorithm.A_STAR ? solveAStar(board) : solveIDAStar(board);
+    }
+
+    /**
+     * @param state A state of the game.
+     * @return The position (1...9) of the tile to be moved next, or -1 if the
+     *         game is already solved or not solvable.
+     */
+    public int hint(EightState state) {
+        int[] moves = solve(state);
+        return moves == null || moves.length == 0 ? -1 : moves[0];
+    }
+
+    /**
+     * @param board A packed board.
+     * @return True if the goal can be reached, i.e. if the number of
+     *         inversions of the tiles (ignoring the hole) is even.
+     */
+    public static boolean isSolvable(long board) {
+        int inversions = 0;
+        for (int i = 0; i < CELLS; i++) {
+            int label = EightState.labelAt(board, i);
+            if (label == 0) {
+                continue;
+            }
+            for (int j = i + 1; j < CELLS; j++) {
+                int other = EightState.labelAt(board, j);
+                if (other != 0 && other < label) {
+                    inversions++;
+                }
+            }
+        }
+        return (inversions & 1) == 0;
+    }
+
+    /**
+     * @param board A packed board.
+     * @return An admissible estimate of the number of moves needed to solve it.
+     */
+    public int heuristic(long board) {
+        int estimate = manhattan(board) + linearConflicts(board);
+        if (this.usePatternDatabase) {
+            estimate = Math.max(estimate, PatternDatabase.INSTANCE.lookup(board));
+        }
+        return estimate;
+    }
+
+    private static int manhattan(long board) {
+        int distance = 0;
+        for (int i = 0; i < CELLS; i++) {
+            distance += MANHATTAN[EightState.labelAt(board, i)][i];
+        }
+        return distance;
+    }
+
+    /**
+     * @return Two moves for each tile that must leave its goal row (or column)
+     *         to let the other tiles of the line pass, computed as the length
+     *         of the line minus its longest increasing subsequence.
+     */
+    private static int linearConflicts(long board) {
+        int conflicts = 0;
+        for (int k = 0; k < SIDE; k++) {
+            // Row k: goal columns of the tiles whose goal row is k
+            int length = 0;
+            int line = 0;
+            for (int column = 0; column < SIDE; column++) {
+                int label = EightState.labelAt(board, k * SIDE + column);
+                if (label != 0 && (label - 1) / SIDE == k) {
+                    line |= ((label - 1) % SIDE) << (length++ * 2);
+                }
+            }
+            conflicts += length - longestIncreasing(line, length);
+
+            // Column k: goal rows of the tiles whose goal column is k
+            length = 0;
+            line = 0;
+            for (int row = 0; row < SIDE; row++) {
+                int label = EightState.labelAt(board, row * SIDE + k);
+                if (label != 0 && (label - 1) % SIDE == k) {
+                    line |= ((label - 1) / SIDE) << (length++ * 2);
+                }
+            }
+            conflicts += length - longestIncreasing(line, length);
+        }
+        return 2 * conflicts;
+    }
+
+    /**
+     * @param line   Up to 3 values in 0...2, packed 2 bits each.
+     * @param length Number of values.
+     * @return The length of the longest increasing subsequence.
+     */
+    private static int longestIncreasing(int line, int length) {
+        int a = line & 3;
+        int b = (line >>> 2) & 3;
+        int c = (line >>> 4) & 3;
+        switch (length) {
+            case 0:
+                return 0;
+            case 1:
+                return 1;
+            case 2:
+                return a < b ? 2 : 1;
+            default:
+                return a < b && b < c ? 3 : a < b || a < c || b < c ? 2 : 1;
+        }
+    }
+
+    private int[] solveIDAStar(long board) {
+        int bound = heuristic(board);
+        while (true) {
+            int result = search(board, EightState.holeIndex(board), 0, bound, -1);
+            if (result < 0) {
+                return Arrays.copyOf(this.path, -result - 1);
+            }
+            if (result == INFINITY) {
+                return null;
+            }
+            bound = result;
+        }
+    }
+
+    /**
+     * @return -(length + 1) if the goal has been found, otherwise the smallest
+     *         f exceeding the bound.
+     */
+    private int search(long board, int hole, int g, int bound, int previousHole) {
+        int f = g + heuristic(board);
+        if (f > bound) {
+            return f;
+        }
+        if (board == EightState.GOAL) {
+            return FOUND - g;
+        }
+
+        this.expandedNodes++;
+        int min = INFINITY;
+        for (int tile : EightState.neighbours(hole)) {
+            // Never undo the previous move
+            if (tile == previousHole) {
+                continue;
+            }
+
+            this.path[g] = tile + 1;
+            int result = search(EightState.swapWithHole(board, hole, tile), tile, g + 1, bound, hole);
+            if (result < 0) {
+                return result;
+            }
+            min = Math.min(min, result);
+        }
+        return min;
+    }
+
+    private int[] solveAStar(long start) {
+        // Open list: a bucket queue indexed by f, whose entries pack board,
+        // hole (bits 36-39) and g (bits 40-)
+        LongList[] buckets = new LongList[64];
+        LongTable visited = new LongTable();
+
+        visited.put(start, 0, start);
+        int f = heuristic(start);
+        buckets = add(buckets, f, start | ((long) EightState.holeIndex(start) << 36));
+
+        while (true) {
+            while (f < buckets.length && (buckets[f] == null || buckets[f].isEmpty())) {
+                f++;
+            }
+            if (f == buckets.length) {
+                return null;
+            }
+
+            long entry = buckets[f].pop();
+            long board = entry & 0xFFFFFFFFFL;
+            int hole = (int) ((entry >>> 36) & 0xF);
+            int g = (int) (entry >>> 40);
+
+            // Skip entries superseded by a shorter path
+            if (visited.getG(board) < g) {
+                continue;
+            }
+            if (board == EightState.GOAL) {
+                return reconstruct(visited, start, g);
+            }
+
+            this.expandedNodes++;
+            for (int tile : EightState.neighbours(hole)) {
+                long next = EightState.swapWithHole(board, hole, tile);
+                int nextG = g + 1;
+                int knownG = visited.getG(next);
+                if (knownG >= 0 && knownG <= nextG) {
+                    continue;
+                }
+
+                visited.put(next, nextG, board);
+                int nextF = nextG + heuristic(next);
+                buckets = add(buckets, nextF, next | ((long) tile << 36) | ((long) nextG << 40));
+                f = Math.min(f, nextF);
+            }
+        }
+    }
+
+    private static LongList[] add(LongList[] buckets, int f, long entry) {
+        if (f >= buckets.length) {
+            buckets = Arrays.copyOf(buckets, Math.max(f + 1, buckets.length * 2));
+        }
+        if (buckets[f] == null) {
+            buckets[f] = new LongList();
+        }
+        buckets[f].push(entry);
+        return buckets;
+    }
+
+    private static int[] reconstruct(LongTable visited, long start, int length) {
+        int[] moves = new int[length];
+        long board = EightState.GOAL;
+        for (int i = length - 1; i >= 0; i--) {
+            // The moved tile left the hole where it was
+            moves[i] = EightState.holeIndex(board) + 1;
+            board = visited.getParent(board);
+        }
+        return moves;
+    }
+
+    /**
+     * A growable stack of longs.
+     */
+    private static final class LongList {
+        private long[] values = new long[16];
+        private int size;
+
+        void push(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        long pop() {
+            return values[--size];
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+    }
+
+    /**
+     * Open-addressing hash table from packed boards to their g and parent
+     * board, without boxing. 0 is never a valid board, so it marks empty slots.
+     */
+    private static final class LongTable {
+        private long[] keys = new long[1 << 10];
+        private int[] gs = new int[1 << 10];
+        private long[] parents = new long[1 << 10];
+        private int size;
+
+        private static int hash(long key) {
+            key ^= key >>> 33;
+            key *= 0xff51afd7ed558ccdL;
+            key ^= key >>> 33;
+            return (int) key;
+        }
+
+        private int slot(long key) {
+            int mask = keys.length - 1;
+            int i = hash(key) & mask;
+            while (keys[i] != 0 && keys[i] != key) {
+                i = (i + 1) & mask;
+            }
+            return i;
+        }
+
+        /**
+         * @return The g of the board, or -1 if it has never been visited.
+         */
+        int getG(long key) {
+            int i = slot(key);
+            return keys[i] == 0 ? -1 : gs[i];
+        }
+
+        long getParent(long key) {
+            return parents[slot(key)];
+        }
+
+        void put(long key, int g, long parent) {
+            int i = slot(key);
+            if (keys[i] == 0) {
+                keys[i] = key;
+                if (++size * 2 > keys.length) {
+                    gs[i] = g;
+                    parents[i] = parent;
+                    grow();
+                    return;
+                }
+            }
+            gs[i] = g;
+            parents[i] = parent;
+        }
+
+        private void grow() {
+            long[] oldKeys = keys;
+            int[] oldGs = gs;
+            long[] oldParents = parents;
+            keys = new long[oldKeys.length * 2];
+            gs = new int[oldKeys.length * 2];
+            parents = new long[oldKeys.length * 2];
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != 0) {
+                    int j = slot(oldKeys[i]);
+                    keys[j] = oldKeys[i];
+                    gs[j] = oldGs[i];
+                    parents[j] = oldParents[i];
+                }
+            }
+        }
+    }
+
+    /**
+     * Two disjoint additive pattern databases, for tiles 1-4 and 5-8. Each one
+     * stores, for every placement of its tiles, the minimum number of moves of
+     * those tiles needed to bring them home, so that their sum is admissible.
+     * They are computed once, on first use, with a 0-1 BFS from the goal.
+     */
+    private static final class PatternDatabase {
+        private static final int[][] PATTERNS = { { 1, 2, 3, 4 }, { 5, 6, 7, 8 } };
+
+        // Pattern of each label (-1 for the hole), and weight of its cell in the
+        // placement index of the pattern
+        private static final int[] PATTERN_OF = new int[CELLS];
+        private static final int[] WEIGHT_OF = new int[CELLS];
+
+        static {
+            PATTERN_OF[0] = -1;
+            for (int p = 0; p < PATTERNS.length; p++) {
+                for (int t = 0; t < PATTERNS[p].length; t++) {
+                    PATTERN_OF[PATTERNS[p][t]] = p;
+                    WEIGHT_OF[PATTERNS[p][t]] = (int) Math.pow(CELLS, PATTERNS[p].length - 1 - t);
+                }
+            }
+        }
+
+        // Declared after the tables used by the constructor
+        private static final PatternDatabase INSTANCE = new PatternDatabase();
+
+        // Distances by placement of the pattern tiles (base-9 positions)
+        private final byte[][] distances = new byte[PATTERNS.length][];
+
+        private PatternDatabase() {
+            for (int p = 0; p < PATTERNS.length; p++) {
+                this.distances[p] = build(PATTERNS[p]);
+            }
+        }
+
+        int lookup(long board) {
+            int placement0 = 0;
+            int placement1 = 0;
+            for (int i = 0; i < CELLS; i++) {
+                int label = EightState.labelAt(board, i);
+                if (PATTERN_OF[label] == 0) {
+                    placement0 += i * WEIGHT_OF[label];
+                } else if (PATTERN_OF[label] == 1) {
+                    placement1 += i * WEIGHT_OF[label];
+                }
+            }
+            return this.distances[0][placement0] + this.distances[1][placement1];
+        }
+
+        /**
+         * 0-1 BFS over abstract states (pattern tiles and hole positions), where
+         * only moves of pattern tiles cost 1.
+         */
+        private static byte[] build(int[] pattern) {
+            int tiles = pattern.length;
+            int placements = (int) Math.pow(CELLS, tiles);
+            byte[] best = new byte[placements];
+            Arrays.fill(best, Byte.MAX_VALUE);
+
+            // Abstract state: placement * CELLS + hole
+            byte[] distance = new byte[placements * CELLS];
+            Arrays.fill(distance, Byte.MAX_VALUE);
+            // Circular deque: every state is pushed at most twice
+            int capacity = Integer.highestOneBit(placements * CELLS * 2) << 1;
+            int mask = capacity - 1;
+            int[] deque = new int[capacity];
+            int head = 0;
+            int tail = 0;
+
+            int goalPlacement = 0;
+            for (int label : pattern) {
+                goalPlacement = goalPlacement * CELLS + (label - 1);
+            }
+            int goal = goalPlacement * CELLS + (CELLS - 1);
+            distance[goal] = 0;
+            deque[tail++ & mask] = goal;
+
+            int[] cells = new int[tiles];
+            while (head != tail) {
+                int state = deque[head++ & mask];
+                int placement = state / CELLS;
+                int hole = state % CELLS;
+                best[placement] = (byte) Math.min(best[placement], distance[state]);
+
+                // Decode the cells of the pattern tiles
+                for (int t = tiles - 1, rest = placement; t >= 0; t--, rest /= CELLS) {
+                    cells[t] = rest % CELLS;
+                }
+
+                for (int neighbour : EightState.neighbours(hole)) {
+                    int moved = -1;
+                    for (int t = 0; t < tiles; t++) {
+                        if (cells[t] == neighbour) {
+                            moved = t;
+                        }
+                    }
+
+                    int nextPlacement = placement;
+                    int cost = 0;
+                    if (moved >= 0) {
+                        int weight = (int) Math.pow(CELLS, tiles - 1 - moved);
+                        nextPlacement += (hole - neighbour) * weight;
+                        cost = 1;
+                    }
+
+                    int next = nextPlacement * CELLS + neighbour;
+                    int nextDistance = distance[state] + cost;
+                    if (nextDistance < distance[next]) {
+                        distance[next] = (byte) nextDistance;
+                        if (cost == 0) {
+                            deque[--head & mask] = next;
+                        } else {
+                            deque[tail++ & mask] = next;
+                        }
+                    }
+                }
+            }
+            return best;
+        }
+    }
+}
@@ -0,0 +1,254 @@
+package the8puzzle;
+
+import java.util.Arrays;
+
+/**
+ * Headless state of the EightPuzzle game.
+ *
+ * The board is packed into a single long, 4 bits per cell: the label of
+ * position p (1...9) is stored in bits [4 * (p - 1), 4 * p). Label 0 is the
+ * hole. Legality of moves is checked with precomputed adjacency tables, so
+ * that games can be simulated without any GUI.
+ *
+ * @author Antonio
+ */
+public final class EightState {
+
+    public static final int SIDE = 3;
+    public static final int CELLS = SIDE * SIDE;
+
+    /**
+     * The solved board: label i in position i, and the hole in position 9.
+     */
+    public static final long GOAL = pack(new int[] { 1, 2, 3, 4, 5, 6, 7, 8, 0 });
+
+    private static final long CELL_MASK = 0xFL;
+
+    /**
+     * ADJACENT[i] has bit j set if cells i and j (0-based) are close.
+     */
+    private static final int[] ADJACENT = new int[CELLS];
+
+    /**
+     * NEIGHBOURS[i] lists the cells (0-based) close to cell i.
+     */
+    private static final int[][] NEIGHBOURS = new int[CELLS][];
+
+    static {
+        for (int i = 0; i < CELLS; i++) {
+            int row = i / SIDE;
+            int column = i % SIDE;
+            int[] candidates = new int[4];
+            int count = 0;
+            if (row > 0) {
+                candidates[count++] = i - SIDE;
+            }
+            if (column > 0) {
+                candidates[count++] = i - 1;
+            }
+            if (column < SIDE - 1) {
+                candidates[count++] = i + 1;
+            }
+            if (row < SIDE - 1) {
+                candidates[count++] = i + SIDE;
+            }
+
+            NEIGHBOURS[i] = Arrays.copyOf(candidates, count);
+            for (int j = 0; j < count; j++) {
+                ADJACENT[i] |= 1 << candidates[j];
+            }
+        }
+    }
+
+    // Game logic
+    private long board;
+    private int hole;
+
+    /**
+     * Creates a solved board.
+     */
+    public EightState() {
+        this.board = GOAL;
+        this.hole = CELLS - 1;
+    }
+
+    /**
+     * @param labels Labels of the tiles, by position (0 is the hole).
+     */
+    public EightState(int[] labels) {
+        setLabels(labels);
+    }
+
+    public EightState(EightState other) {
+        this.board = other.board;
+        this.hole = other.hole;
+    }
+
+    /**
+     * @param labels Labels of the tiles, by position (0 is the hole).
+     * @throws IllegalArgumentException If they are not a permutation of
+     *                                  0...8.
+     */
+    public void setLabels(int[] labels) {
+        if (labels.length != CELLS) {
+            throw new IllegalArgumentException("Expected " + CELLS + " labels, got " + labels.length);
+        }
+
+        // Bit i of seen is set once label i has been found
+        int seen = 0;
+        for (int label : labels) {
+            if (label < 0 || label >= CELLS || (seen & (1 << label)) != 0) {
+                throw new IllegalArgumentException("Labels are not a permutation: " + Arrays.toString(labels));
+            }
+            seen |= 1 << label;
+        }
+        this.board = pack(labels);
+        this.hole = holeIndex(this.board);
+    }
+
+    /**
+     * @return The labels of the tiles, by position (0 is the hole).
+     */
+    public int[] getLabels() {
+        return unpack(this.board);
+    }
+
+    /**
+     * @return The packed board.
+     */
+    public long getBoard() {
+        return this.board;
+    }
+
+    /**
+     * @param position A position (1...9).
+     * @return The label of the tile in that position.
+     */
+    public int getLabel(int position) {
+        return labelAt(this.board, position - 1);
+    }
+
+    /**
+     * @return The position (1...9) of the hole.
+     */
+    public int getHolePosition() {
+        return this.hole + 1;
+    }
+
+    /**
+     * @return True if all the tiles are in their position.
+     */
+    public boolean isSolved() {
+        return this.board == GOAL;
+    }
+
+    /**
+     * @param position The position (1...9) of the tile to move.
+     * @return True if the tile is close to the hole, false otherwise.
+     */
+    public boolean canMove(int position) {
+        return position >= 1 && position <= CELLS && ((ADJACENT[this.hole] >>> (position - 1)) & 1) != 0;
+    }
+
+    /**
+     * Move the tile in the given position into the hole (if allowed).
+     *
+     * @param position The position (1...9) of the tile to move.
+     * @return True if the move has been done, false if it is not allowed.
+     */
+    public boolean move(int position) {
+        if (!canMove(position)) {
+            return false;
+        }
+        this.board = swapWithHole(this.board, this.hole, position - 1);
+        this.hole = position - 1;
+        return true;
+    }
+
+    /**
+     * Flip the labels of the first two tiles (only allowed when the hole is in
+     * the last position).
+     *
+     * @return True if the flip has been done, false otherwise.
+     */
+    public boolean flip() {
+        if (this.hole != CELLS - 1) {
+            return false;
+        }
+        long first = this.board & CELL_MASK;
+        long second = (this.board >>> 4) & CELL_MASK;
+        this.board = (this.board & ~0xFFL) | (first << 4) | second;
+        return true;
+    }
+
+    /**
+     * @param position1 The first position (1...9).
+     * @param position2 The second position (1...9).
+     * @return True if the positions are close (distant 1 either horizontally or
+     *         vertically, but not both at the same time), false otherwise.
+     */
+    public static boolean areAdjacent(int position1, int position2) {
+        return position1 >= 1 && position1 <= CELLS && position2 >= 1 && position2 <= CELLS
+                && ((ADJACENT[position1 - 1] >>> (position2 - 1)) & 1) != 0;
+    }
+
+    /**
+     * @param index A cell (0-based).
+     * @return The cells (0-based) close to it. The array must not be modified.
+     */
+    static int[] neighbours(int index) {
+        return NEIGHBOURS[index];
+    }
+
+    /**
+     * @return The label stored in the cell (0-based) of a packed board.
+     */
+    public static int labelAt(long board, int index) {
+        return (int) ((board >>> (index << 2)) & CELL_MASK);
+    }
+
+    /**
+     * @return The cell (0-based) containing the hole in a packed board.
+     */
+    public static int holeIndex(long board) {
+        for (int i = 0; i < CELLS; i++) {
+            if (labelAt(board, i) == 0) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Board without hole: " + Long.toHexString(board));
+    }
+
+    /**
+     * @return The packed board obtained by moving the tile in cell "tile" into
+     *         the hole in cell "hole" (both 0-based, not checked).
+     */
+    public static long swapWithHole(long board, int hole, int tile) {
+        long label = (board >>> (tile << 2)) & CELL_MASK;
+        return (board & ~(CELL_MASK << (tile << 2))) | (label << (hole << 2));
+    }
+
+    /**
+     * @param labels Labels of the tiles, by position (0 is the hole).
+     * @return The packed board.
+     */
+    public static long pack(int[] labels) {
+        long board = 0;
+        for (int i = labels.length - 1; i >= 0; i--) {
+            board = (board << 4) | (labels[i] & CELL_MASK);
+        }
+        return board;
+    }
+
+    /**
+     * @param board A packed board.
+     * @return Labels of the tiles, by position (0 is the hole).
+     */
+    public static int[] unpack(long board) {
+        int[] labels = new int[CELLS];
+        for (int i = 0; i < CELLS; i++) {
+            labels[i] = labelAt(board, i);
+        }
+        return labels;
+    }
+}
@@ -9,6 +9,10 @@ import javax.swing.JLabel;
  */
 public class EightStatus extends JLabel implements PropertyChangeListener {
 
+    // Last message shown, and moves remaining to solve the game (-1 if unknown)
+    private String message = "STATUS";
+    private int remainingMoves = -1;
+
     /**
      * Creates new form EightStatus
      */
@@ -32,16 +36,30 @@ public class EightStatus extends JLabel implements PropertyChangeListener {
     public void propertyChange(PropertyChangeEvent evt) {
         switch (evt.getPropertyName()) {
             case EightController.EVENT_NEWGAME:
-                this.setText("START");
+                this.message = "START";
                 break;
             case EightController.EVENT_MOVEVETOED:
-                this.setText("KO");
+                this.message = "KO";
                 break;
             case EightController.EVENT_MOVEALLOWED:
-                this.setText("OK");
+                this.message = "OK";
                 break;
-            default:
+            case EightController.EVENT_HINT:
+                int label = (int) evt.getNewValue();
+                this.message = label > 0 ? "MOVE " + label
+                        : label == 0 ? "SOLVED"
+                        : label == SlidingController.HINT_TOO_HARD ? "TOO HARD" : "NO HINT";
+                break;
+            case EightController.EVENT_SEARCHING:
+                this.message = "THINKING";
                 break;
+            case EightController.EVENT_REMAINING:
+                this.remainingMoves = (int) evt.getNewValue();
+                break;
+            default:
+                return;
         }
+
+        this.setText(this.remainingMoves >= 0 ? this.message + " (" + this.remainingMoves + ")" : this.message);
     }
 }
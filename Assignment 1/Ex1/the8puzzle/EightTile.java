@@ -5,26 +5,21 @@
 package the8puzzle;
 
 import java.awt.Color;
-import java.awt.event.ActionEvent;
-import java.awt.event.ActionListener;
-import java.beans.PropertyChangeEvent;
-import java.beans.PropertyChangeListener;
 import java.beans.PropertyVetoException;
 import java.beans.VetoableChangeListener;
 import java.beans.VetoableChangeSupport;
 import javax.swing.JButton;
-import javax.swing.Timer;
 
 /**
  * A Tile for the EightPuzzle game.
  *
  * @author Antonio
  */
-public class EightTile extends JButton implements PropertyChangeListener {
+public class EightTile extends JButton implements EightTileListener {
 
     // Game logic
     private final int position;
-    private int tileLabel;
+    private int tileLabel = -1;
 
     // Colors
     private final Color holeColor = Color.darkGray;
@@ -32,8 +27,7 @@ public class EightTile extends JButton implements PropertyChangeListener {
     private final Color rightPositionColor = Color.GREEN;
     private final Color blinkColor = Color.RED;
 
-    // Blink customization for error displaying
-    private final int blinkDuration = 50;
+    // Blink customization for error displaying (one change per animation frame)
     private final byte blinkColorChangeTimes = 3;
 
     // Vetos
@@ -86,6 +80,7 @@ public class EightTile extends JButton implements PropertyChangeListener {
     /**
      * @return position value.
      */
+    @Override
     public int getPosition() {
         return this.position;
     }
@@ -101,16 +96,20 @@ public class EightTile extends JButton implements PropertyChangeListener {
      * Set the label of the tile.
      * Colour is also changed dependently from label value.
      *
+     * Nothing is changed (and repainted) if the label is the same.
+     *
      * @param label Wanted label for the tile. If label=0, the tile is
      *              considered as the hole.
      */
+    @Override
     public void setTileLabel(int label) {
+        if (label == this.tileLabel) {
+            return;
+        }
         this.tileLabel = label;
 
         // Set background color
-        Color backgroundColor = label == 0 ? this.holeColor
-                : label == this.position ? this.rightPositionColor : this.wrongPositionColor;
-        setBackground(backgroundColor);
+        setBackground(labelColor());
 
         // Set label
         String text = label != 0 ? String.valueOf(label) : "";
@@ -121,67 +120,40 @@ public class EightTile extends JButton implements PropertyChangeListener {
     }
 
     /**
-     * Visualize vetoed change of this button by making it blink.
+     * @return The background color for the current label.
+     */
+    private Color labelColor() {
+        return this.tileLabel == 0 ? this.holeColor
+                : this.tileLabel == this.position ? this.rightPositionColor : this.wrongPositionColor;
+    }
+
+    /**
+     * Visualize vetoed change of this button by making it blink, on the shared
+     * animator. A blink already in progress is restarted. The color of the
+     * label is restored at the end, even if the label has changed meanwhile.
      */
     private void displayError() {
-        JButton button = this;
-
-        Timer blinkTimer = new Timer(blinkDuration, new ActionListener() {
-            private int blinkColorChangeCount = 0;
-            private final Color originalColor = button.getBackground();
-
-            @Override
-            public void actionPerformed(ActionEvent e) {
-                if (blinkColorChangeCount < blinkColorChangeTimes) {
-                    button.setBackground(button.getBackground() == originalColor ? blinkColor : originalColor);
-                    blinkColorChangeCount++;
-                } else {
-                    button.setBackground(originalColor);
-                    ((Timer) e.getSource()).stop();
-                }
+        EightAnimator.getInstance().start(this, frame -> {
+            if (frame < this.blinkColorChangeTimes) {
+                setBackground(frame % 2 == 0 ? this.blinkColor : labelColor());
+                return true;
             }
+            setBackground(labelColor());
+            return false;
         });
-        blinkTimer.start();
     }
 
     /**
      * Main action for the game. If the move is allowed,
-     * the tile becomes the hole, otherwise it blinks.
+     * the controller makes the tile become the hole, otherwise it blinks.
      * 
      * @param evt Action event.
      */
     private void eightTileClicked(java.awt.event.ActionEvent evt) {// GEN-FIRST:event_eightTileClicked
         try {
-            this.vetos.fireVetoableChange(EVENT_TILECLICKED, new int[] { this.position, this.tileLabel }, null);
-            // If move is allowed, this tile becomes the current hole
-            this.setTileLabel(0);
+            this.vetos.fireVetoableChange(EVENT_TILECLICKED, this.position, null);
         } catch (PropertyVetoException e) {
             this.displayError();
         }
     }
-
-    /**
-     * Property change listener for the game,
-     * which is used to set the label of the tile.
-     */
-    @Override
-    public void propertyChange(PropertyChangeEvent evt) {
-        // Both the events will set the label, but it is passed differently
-        if (evt.getPropertyName().equals(EightController.EVENT_SETLABEL)) {
-            // Label is given directly in the event
-            int[] tileProperties = (int[]) evt.getNewValue();
-            int givenPosition = tileProperties[0];
-            int givenTileLabel = tileProperties[1];
-
-            if (givenPosition != this.position) {
-                return;
-            }
-
-            this.setTileLabel(givenTileLabel);
-        } else if (evt.getPropertyName().equals(EightController.EVENT_NEWGAME)) {
-            // Label is given by position "this.position - 1" of a permutation of integers
-            int[] permutationLabels = (int[]) evt.getNewValue();
-            this.setTileLabel(permutationLabels[this.position - 1]);
-        }
-    }
 }
@@ -0,0 +1,23 @@
+package the8puzzle;
+
+/**
+ * A listener for the label of a single position of the board.
+ *
+ * The controller keeps one listener per position and notifies only the
+ * affected one, passing the label directly.
+ *
+ * @author Antonio
+ */
+public interface EightTileListener {
+    /**
+     * @return The position (1...9) this listener is interested in.
+     */
+    int getPosition();
+
+    /**
+     * Called when the label of the position changes.
+     *
+     * @param label The new label (0 for the hole).
+     */
+    void setTileLabel(int label);
+}
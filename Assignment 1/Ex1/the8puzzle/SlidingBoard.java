@@ -0,0 +1,132 @@
+package the8puzzle;
+
+/**
+ * The main board for the NxN sliding puzzle (15-puzzle, 24-puzzle...). The
+ * grid of tiles is built for the side given on the command line.
+ *
+ * @author Antonio
+ */
+public class SlidingBoard extends javax.swing.JFrame {
+
+    public static final int DEFAULT_SIDE = 4;
+
+    private final int side;
+
+    private EightTile[] eightTiles;
+    private EightStatus eightStatus;
+    private javax.swing.JButton restartButton;
+    private javax.swing.JButton flipButton;
+    private javax.swing.JButton hintButton;
+
+    private SlidingController slidingController;
+
+    /**
+     * Initialise the board and start a new game.
+     *
+     * @param side The number of rows (and columns) of the board.
+     */
+    public SlidingBoard(int side) {
+        this.side = side;
+        initComponents();
+
+        // Initialise slidingController and register listeners
+        slidingController = new SlidingController(side);
+
+        for (EightTile eightTile : eightTiles) {
+            eightTile.addVetoableChangeListener(slidingController);
+            slidingController.addTileListener(eightTile);
+        }
+
+        slidingController.addStatusListener(eightStatus);
+
+        // Start a New Game
+        slidingController.startNewGame();
+    }
+
+    private void initComponents() {
+
+        eightTiles = new EightTile[side * side];
+        for (int i = 0; i < eightTiles.length; i++) {
+            eightTiles[i] = new EightTile(i + 1);
+        }
+        eightStatus = new EightStatus();
+        restartButton = new javax.swing.JButton();
+        flipButton = new javax.swing.JButton();
+        hintButton = new javax.swing.JButton();
+
+        setDefaultCloseOperation(javax.swing.WindowConstants.DISPOSE_ON_CLOSE);
+        setTitle((side * side - 1) + "-puzzle");
+        getContentPane().setLayout(new java.awt.BorderLayout());
+
+        javax.swing.JPanel tilesPanel = new javax.swing.JPanel(new java.awt.GridLayout(side, side));
+        for (EightTile eightTile : eightTiles) {
+            tilesPanel.add(eightTile);
+        }
+        getContentPane().add(tilesPanel, java.awt.BorderLayout.CENTER);
+
+        javax.swing.JPanel controlsPanel = new javax.swing.JPanel(new java.awt.GridLayout(1, 4));
+        controlsPanel.add(eightStatus);
+
+        restartButton.setText("RESTART");
+        restartButton.addActionListener(new java.awt.event.ActionListener() {
+            public void actionPerformed(java.awt.event.ActionEvent evt) {
+                restartGame(evt);
+            }
+        });
+        controlsPanel.add(restartButton);
+
+        flipButton.setText("FLIP");
+        flipButton.addActionListener(new java.awt.event.ActionListener() {
+            public void actionPerformed(java.awt.event.ActionEvent evt) {
+                flipButtonActionPerformed(evt);
+            }
+        });
+        controlsPanel.add(flipButton);
+
+        hintButton.setText("HINT");
+        hintButton.addActionListener(new java.awt.event.ActionListener() {
+            public void actionPerformed(java.awt.event.ActionEvent evt) {
+                hintButtonActionPerformed(evt);
+            }
+        });
+        controlsPanel.add(hintButton);
+        getContentPane().add(controlsPanel, java.awt.BorderLayout.SOUTH);
+
+        pack();
+    }
+
+    private void restartGame(java.awt.event.ActionEvent evt) {
+        slidingController.startNewGame();
+    }
+
+    /**
+     * Close the controller (stopping its search thread) with the board.
+     */
+    @Override
+    public void dispose() {
+        slidingController.close();
+        super.dispose();
+    }
+
+    private void flipButtonActionPerformed(java.awt.event.ActionEvent evt) {
+        slidingController.flip();
+    }
+
+    private void hintButtonActionPerformed(java.awt.event.ActionEvent evt) {
+        slidingController.hint();
+    }
+
+    /**
+     * @param args Optional side of the board (DEFAULT_SIDE otherwise).
+     */
+    public static void main(String args[]) {
+        int side = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_SIDE;
+
+        /* Create and display the form */
+        java.awt.EventQueue.invokeLater(new Runnable() {
+            public void run() {
+                new SlidingBoard(side).setVisible(true);
+            }
+        });
+    }
+}
@@ -0,0 +1,284 @@
+package the8puzzle;
+
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.beans.PropertyChangeSupport;
+import java.beans.PropertyVetoException;
+import java.beans.VetoableChangeListener;
+import java.util.SplittableRandom;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import javax.swing.SwingUtilities;
+
+/**
+ * The controller for the NxN sliding puzzle. It fires the same events as
+ * EightController, so that EightTile and EightStatus can be reused.
+ *
+ * Hints are searched on a background thread, so the caller (normally the EDT)
+ * is never blocked: the "searching" event is fired at once, and the "hint"
+ * event is later fired on the EDT. Any change of the game cancels the search
+ * in progress. The controller itself must be used from a single thread.
+ *
+ * The pattern databases of the solver are built on the same thread, as soon
+ * as the controller is created: a hint asked before they are ready stays
+ * "searching" until they are. Searches give up after HINT_NODE_LIMIT nodes,
+ * which random 24-puzzle boards always reach.
+ *
+ * The controller must be closed when no longer used, to stop its search
+ * thread; it cannot give hints after that.
+ *
+ * @author Antonio
+ */
+public class SlidingController implements VetoableChangeListener, AutoCloseable {
+
+    /**
+     * Maximum number of nodes expanded by the search of a hint (some seconds).
+     */
+    public static final long HINT_NODE_LIMIT = 100_000_000L;
+
+    /**
+     * Label of the "hint" event fired when the search reaches HINT_NODE_LIMIT.
+     */
+    public static final int HINT_TOO_HARD = -2;
+
+    // Game logic
+    private final SlidingState state;
+    private final SplittableRandom random;
+
+    // Solver, built and used by the search thread only
+    private SlidingSolver solver;
+
+    // Background search of hints, and version of the game it refers to
+    private final ExecutorService searches;
+    private Future<?> search;
+    private long version;
+
+    // Listeners (tiles are indexed by position - 1)
+    private final EightTileListener[] tileListeners;
+    private final PropertyChangeSupport statusSupport;
+
+    // Events
+    private static final String VETO_MESSAGE = "Move not allowed.";
+
+    /**
+     * @param side The number of rows (and columns) of the board.
+     */
+    public SlidingController(int side) {
+        this(side, new SplittableRandom());
+    }
+
+    /**
+     * @param side The number of rows (and columns) of the board.
+     * @param seed Seed of the random generator, so that the sequence of games
+     *             can be reproduced.
+     */
+    public SlidingController(int side, long seed) {
+        this(side, new SplittableRandom(seed));
+    }
+
+    private SlidingController(int side, SplittableRandom random) {
+        this.state = new SlidingState(side);
+        this.random = random;
+        this.searches = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "sliding-solver");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        // Build the databases off the caller thread, before any search
+        this.searches.execute(() -> {
+            this.solver = new SlidingSolver(side);
+            this.solver.setNodeLimit(HINT_NODE_LIMIT);
+        });
+        this.tileListeners = new EightTileListener[side * side];
+        this.statusSupport = new PropertyChangeSupport(this);
+    }
+
+    /**
+     * Register the listener of a position, replacing the previous one (if any).
+     * It is immediately notified of the current label.
+     *
+     * @param listener The listener.
+     */
+    public void addTileListener(EightTileListener listener) {
+        int position = listener.getPosition();
+        if (position < 1 || position > this.state.getSize()) {
+            throw new IllegalArgumentException("Invalid tile position: " + position);
+        }
+        this.tileListeners[position - 1] = listener;
+        listener.setTileLabel(this.state.getLabel(position));
+    }
+
+    public void removeTileListener(EightTileListener listener) {
+        int position = listener.getPosition();
+        if (position >= 1 && position <= this.state.getSize() && this.tileListeners[position - 1] == listener) {
+            this.tileListeners[position - 1] = null;
+        }
+    }
+
+    public void addStatusListener(PropertyChangeListener listener) {
+        this.statusSupport.addPropertyChangeListener(listener);
+    }
+
+    public void removeStatusListener(PropertyChangeListener listener) {
+        this.statusSupport.removePropertyChangeListener(listener);
+    }
+
+    public int getSide() {
+        return this.state.getSide();
+    }
+
+    /**
+     * @return a copy of the current state of the game, which can be used to
+     *         simulate moves without affecting it.
+     */
+    public SlidingState getState() {
+        return new SlidingState(this.state);
+    }
+
+    /**
+     * Shuffle the tiles labels (to a solvable, not already solved board),
+     * notify every tile and fire the "startNewGame" event.
+     */
+    public void startNewGame() {
+        do {
+            this.state.setLabels(SlidingState.randomSolvable(this.state.getSide(), this.random));
+        } while (this.state.isSolved());
+        changed();
+
+        for (int position = 1; position <= this.state.getSize(); position++) {
+            notifyTile(position, this.state.getLabel(position));
+        }
+        this.statusSupport.firePropertyChange(EightController.EVENT_NEWGAME, null, null);
+    }
+
+    /**
+     * Notify the listener of a position (if any) of its new label.
+     */
+    private void notifyTile(int position, int label) {
+        EightTileListener listener = this.tileListeners[position - 1];
+        if (listener != null) {
+            listener.setTileLabel(label);
+        }
+    }
+
+    /**
+     * Allow/deny the move of a tile, and notifies the tile and the hole to
+     * change their labels. It does also notify the status of the game.
+     *
+     * @param evt The event fired by the tile.
+     */
+    @Override
+    public void vetoableChange(PropertyChangeEvent evt) throws PropertyVetoException {
+        if (evt.getPropertyName().equals(EightTile.EVENT_TILECLICKED)) {
+            int position = (int) evt.getOldValue();
+            if (!move(position)) {
+                throw new PropertyVetoException(VETO_MESSAGE, evt);
+            }
+        }
+    }
+
+    /**
+     * Move the tile in the given position into the hole, if allowed.
+     *
+     * @param position The position (1...N*N) of the tile to move.
+     * @return True if the move has been done, false if it is not allowed.
+     */
+    public boolean move(int position) {
+        int holePosition = this.state.getHolePosition();
+        if (!this.state.canMove(position)) {
+            this.statusSupport.firePropertyChange(EightController.EVENT_MOVEVETOED, position, holePosition);
+            return false;
+        }
+
+        int tileLabel = this.state.getLabel(position);
+        this.state.move(position);
+        changed();
+        notifyTile(holePosition, tileLabel);
+        notifyTile(position, 0);
+        this.statusSupport.firePropertyChange(EightController.EVENT_MOVEALLOWED, position, holePosition);
+        return true;
+    }
+
+    /**
+     * Flip the labels of the first two tiles (if allowed, i.e. if the hole is
+     * in the last position).
+     */
+    public void flip() {
+        if (this.state.flip()) {
+            changed();
+            notifyTile(1, this.state.getLabel(1));
+            notifyTile(2, this.state.getLabel(2));
+        }
+    }
+
+    /**
+     * Start searching the next move of an optimal solution, cancelling the
+     * previous search (if any). The "hint" event is fired to the status with
+     * the label of the tile to be moved (0 if the game is already solved, -1
+     * if it cannot be solved without flipping, HINT_TOO_HARD if the search
+     * gave up).
+     */
+    public void hint() {
+        cancelSearch();
+        if (this.state.isSolved()) {
+            this.statusSupport.firePropertyChange(EightController.EVENT_HINT, null, 0);
+            return;
+        }
+
+        SlidingState snapshot = getState();
+        long searchVersion = this.version;
+        this.statusSupport.firePropertyChange(EightController.EVENT_SEARCHING, null, null);
+        this.search = this.searches.submit(() -> {
+            int label;
+            try {
+                int position = this.solver.hint(snapshot);
+                label = position == -1 ? -1 : snapshot.getLabel(position);
+            } catch (CancellationException e) {
+                if (Thread.currentThread().isInterrupted()) {
+                    return;
+                }
+                // Not interrupted, so the node limit has been reached
+                label = HINT_TOO_HARD;
+            }
+
+            // Drop the result if the game has changed in the meantime
+            int hint = label;
+            SwingUtilities.invokeLater(() -> {
+                if (this.version == searchVersion) {
+                    this.statusSupport.firePropertyChange(EightController.EVENT_HINT, null, hint);
+                }
+            });
+        });
+    }
+
+    /**
+     * Interrupt the search in progress (if any).
+     */
+    public void cancelSearch() {
+        if (this.search != null) {
+            this.search.cancel(true);
+            this.search = null;
+        }
+    }
+
+    /**
+     * Stop the search in progress (if any) and the search thread. Pending
+     * hints are dropped.
+     */
+    @Override
+    public void close() {
+        changed();
+        this.searches.shutdownNow();
+    }
+
+    /**
+     * Record that the game has changed, making any pending hint obsolete.
+     */
+    private void changed() {
+        this.version++;
+        cancelSearch();
+    }
+}
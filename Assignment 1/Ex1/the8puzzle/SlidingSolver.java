@@ -0,0 +1,401 @@
+package the8puzzle;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
+/**
+ * Optimal IDA* solver for the NxN sliding puzzle of SlidingState.
+ *
+ * The heuristic is the sum of disjoint additive pattern databases: the tiles
+ * are split into groups of consecutive labels, and each database stores, for
+ * every placement of its tiles, the minimum number of moves of those tiles
+ * needed to bring them home, letting them move into any free cell. Ignoring the
+ * hole keeps the databases small enough for the 15- and 24-puzzle, and lets
+ * the heuristic be updated in O(1) after each move. Databases are computed on
+ * first use, once per side, and shared by all the solvers.
+ *
+ * Transpositions are pruned with a fixed-size table of Zobrist hashes, which
+ * bounds the memory used by the search.
+ *
+ * A search can be cancelled by interrupting the thread running it, or bounded
+ * with a node limit: solve then throws a CancellationException. A limit is
+ * needed for the 24-puzzle, since the databases that fit in memory (4 tiles
+ * each) only give a weak heuristic: easy boards are solved, but random ones
+ * are far beyond reach.
+ *
+ * Solutions are returned as the positions (1...N*N) of the tiles to be moved
+ * into the hole, in order. The flip is never used.
+ *
+ * @author Antonio
+ */
+public class SlidingSolver {
+
+    public static final int DEFAULT_TABLE_SIZE = 1 << 20;
+
+    private static final int FOUND = -1;
+    private static final int INFINITY = Integer.MAX_VALUE;
+
+    // Maximum number of entries of a pattern database
+    private static final int MAX_PLACEMENTS = 1 << 20;
+
+    // The interruption flag is checked every CHECK_MASK + 1 expanded nodes
+    private static final long CHECK_MASK = (1 << 16) - 1;
+
+    private static final byte UNVISITED = (byte) 0xFF;
+
+    /**
+     * ZOBRIST[label][index] is the random key of a tile with that label in
+     * that cell.
+     */
+    private static final long[][] ZOBRIST = new long[SlidingState.MAX_SIDE * SlidingState.MAX_SIDE][];
+
+    static {
+        SplittableRandom random = new SplittableRandom(0x5EED);
+        for (int label = 0; label < ZOBRIST.length; label++) {
+            ZOBRIST[label] = random.longs(ZOBRIST.length).toArray();
+        }
+    }
+
+    private static final Map<Integer, PatternDatabase> DATABASES = new ConcurrentHashMap<>();
+
+    private final int side;
+    private final PatternDatabase database;
+    private final TranspositionTable table;
+
+    // Statistics of the last search, and its maximum
+    private long expandedNodes;
+    private long nodeLimit = Long.MAX_VALUE;
+
+    // State of the current IDA* path, updated in place
+    private final byte[] cells;
+    private final int[] placements;
+    private int hole;
+    private int estimate;
+    private long hash;
+    private int bound;
+    private int[] path = new int[256];
+
+    /**
+     * @param side The number of rows (and columns) of the board.
+     */
+    public SlidingSolver(int side) {
+        this(side, DEFAULT_TABLE_SIZE);
+    }
+
+    /**
+     * @param side      The number of rows (and columns) of the board.
+     * @param tableSize Number of entries of the transposition table (rounded
+     *                  up to a power of 2).
+     */
+    public SlidingSolver(int side, int tableSize) {
+        new SlidingState(side); // Validates the side
+        this.side = side;
+        this.database = DATABASES.computeIfAbsent(side, PatternDatabase::new);
+        this.table = new TranspositionTable(tableSize);
+        this.cells = new byte[side * side];
+        this.placements = new int[this.database.distances.length];
+    }
+
+    /**
+     * @param nodeLimit The maximum number of nodes expanded by a call to solve
+     *                  (approximate, checked with the interruption flag).
+     */
+    public void setNodeLimit(long nodeLimit) {
+        this.nodeLimit = nodeLimit;
+    }
+
+    /**
+     * @return The number of nodes expanded by the last call to solve.
+     */
+    public long getExpandedNodes() {
+        return this.expandedNodes;
+    }
+
+    /**
+     * @param state A state of the game (with the side of the solver).
+     * @return An optimal sequence of moves solving it, or null if it is not
+     *         solvable.
+     * @throws CancellationException If the thread is interrupted or the node
+     *                               limit is reached.
+     */
+    public int[] solve(SlidingState state) {
+        if (state.getSide() != this.side) {
+            throw new IllegalArgumentException("Expected side " + this.side + ", got " + state.getSide());
+        }
+        this.expandedNodes = 0;
+        if (!state.isSolvable()) {
+            return null;
+        }
+
+        System.arraycopy(state.cells(), 0, this.cells, 0, this.cells.length);
+        this.hole = state.getHolePosition() - 1;
+        this.hash = 0;
+        Arrays.fill(this.placements, 0);
+        for (int i = 0; i < this.cells.length; i++) {
+            int label = this.cells[i];
+            if (label != 0) {
+                this.placements[this.database.patternOf[label]] += i * this.database.weightOf[label];
+                this.hash ^= ZOBRIST[label][i];
+            }
+        }
+        this.estimate = this.database.lookup(this.placements);
+
+        this.table.clear();
+        this.bound = this.estimate;
+        while (true) {
+            this.table.nextIteration();
+            int result = search(0, -1);
+            if (result < 0) {
+                return Arrays.copyOf(this.path, -result - 1);
+            }
+            this.bound = result;
+        }
+    }
+
+    /**
+     * @param state A state of the game.
+     * @return The position (1...N*N) of the tile to be moved next, or -1 if the
+     *         game is already solved or not solvable.
+     * @throws CancellationException If the thread is interrupted or the node
+     *                               limit is reached.
+     */
+    public int hint(SlidingState state) {
+        int[] moves = solve(state);
+        return moves == null || moves.length == 0 ? -1 : moves[0];
+    }
+
+    /**
+     * @param state A state of the game.
+     * @return An admissible estimate of the number of moves needed to solve it.
+     */
+    public int heuristic(SlidingState state) {
+        int[] placements = new int[this.database.distances.length];
+        for (int position = 1; position <= state.getSize(); position++) {
+            int label = state.getLabel(position);
+            if (label != 0) {
+                placements[this.database.patternOf[label]] += (position - 1) * this.database.weightOf[label];
+            }
+        }
+        return this.database.lookup(placements);
+    }
+
+    /**
+     * @return -(length + 1) if the goal has been found, otherwise the smallest
+     *         f exceeding the bound.
+     */
+    private int search(int g, int previousHole) {
+        int f = g + this.estimate;
+        if (f > this.bound) {
+            return f;
+        }
+        if (this.estimate == 0) {
+            // All the tiles are home, so the hole is too
+            return FOUND - g;
+        }
+        if (this.table.isRedundant(this.hash, g)) {
+            return INFINITY;
+        }
+
+        if ((++this.expandedNodes & CHECK_MASK) == 0) {
+            if (Thread.currentThread().isInterrupted()) {
+                throw new CancellationException("Search interrupted");
+            }
+            if (this.expandedNodes >= this.nodeLimit) {
+                throw new CancellationException("Node limit reached");
+            }
+        }
+        if (g == this.path.length) {
+            this.path = Arrays.copyOf(this.path, g * 2);
+        }
+
+        int hole = this.hole;
+        int min = INFINITY;
+        for (int tile : SlidingState.neighbours(this.side, hole)) {
+            // Never undo the previous move
+            if (tile == previousHole) {
+                continue;
+            }
+
+            // Move the tile into the hole, updating the heuristic in O(1)
+            int label = this.cells[tile];
+            int pattern = this.database.patternOf[label];
+            byte[] distances = this.database.distances[pattern];
+            int placement = this.placements[pattern];
+            int nextPlacement = placement + (hole - tile) * this.database.weightOf[label];
+            int delta = (distances[nextPlacement] & 0xFF) - (distances[placement] & 0xFF);
+            long keys = ZOBRIST[label][tile] ^ ZOBRIST[label][hole];
+
+            this.cells[hole] = (byte) label;
+            this.cells[tile] = 0;
+            this.hole = tile;
+            this.placements[pattern] = nextPlacement;
+            this.estimate += delta;
+            this.hash ^= keys;
+            this.path[g] = tile + 1;
+
+            int result = search(g + 1, hole);
+
+            this.cells[tile] = (byte) label;
+            this.cells[hole] = 0;
+            this.hole = hole;
+            this.placements[pattern] = placement;
+            this.estimate -= delta;
+            this.hash ^= keys;
+
+            if (result < 0) {
+                return result;
+            }
+            min = Math.min(min, result);
+        }
+        return min;
+    }
+
+    /**
+     * Fixed-size table of the states visited by the current iteration, with
+     * the smallest g they have been reached with. A state reached again with a
+     * g which is not smaller has already been searched with at least the same
+     * budget. Collisions simply overwrite the older entry.
+     */
+    private static final class TranspositionTable {
+        private final long[] keys;
+        // Iteration (upper bits) and g (lower 8 bits) of each entry
+        private final int[] entries;
+        private final int mask;
+        private int iteration;
+
+        TranspositionTable(int size) {
+            int capacity = Integer.highestOneBit(Math.max(size - 1, 1)) << 1;
+            this.keys = new long[capacity];
+            this.entries = new int[capacity];
+            this.mask = capacity - 1;
+        }
+
+        void clear() {
+            Arrays.fill(this.entries, 0);
+            this.iteration = 0;
+        }
+
+        void nextIteration() {
+            this.iteration++;
+        }
+
+        /**
+         * @return True if the state has already been reached by this iteration
+         *         with at most the same g, otherwise records it.
+         */
+        boolean isRedundant(long key, int g) {
+            int slot = (int) (key ^ (key >>> 32)) & this.mask;
+            int entry = this.entries[slot];
+            if (this.keys[slot] == key && (entry >>> 8) == this.iteration && (entry & 0xFF) <= g) {
+                return true;
+            }
+            this.keys[slot] = key;
+            this.entries[slot] = (this.iteration << 8) | g;
+            return false;
+        }
+    }
+
+    /**
+     * Disjoint additive pattern databases for one side, indexed by the
+     * placement of the pattern tiles (cells in base N*N).
+     */
+    private static final class PatternDatabase {
+        // Pattern of each label, and weight of its cell in the placement index
+        final int[] patternOf;
+        final int[] weightOf;
+        final byte[][] distances;
+
+        PatternDatabase(int side) {
+            int size = side * side;
+
+            // As many tiles per pattern as MAX_PLACEMENTS allows
+            int tiles = 1;
+            while (tiles < size - 1 && Math.pow(size, tiles + 1) <= MAX_PLACEMENTS) {
+                tiles++;
+            }
+            int[][] patterns = new int[(size - 1 + tiles - 1) / tiles][];
+            for (int p = 0; p < patterns.length; p++) {
+                int first = p * tiles + 1;
+                patterns[p] = IntStream.range(first, Math.min(first + tiles, size)).toArray();
+            }
+
+            this.patternOf = new int[size];
+            this.weightOf = new int[size];
+            for (int p = 0; p < patterns.length; p++) {
+                for (int t = 0; t < patterns[p].length; t++) {
+                    this.patternOf[patterns[p][t]] = p;
+                    this.weightOf[patterns[p][t]] = (int) Math.pow(size, patterns[p].length - 1 - t);
+                }
+            }
+
+            this.distances = IntStream.range(0, patterns.length).parallel()
+                    .mapToObj(p -> build(side, patterns[p]))
+                    .toArray(byte[][]::new);
+        }
+
+        int lookup(int[] placements) {
+            int sum = 0;
+            for (int p = 0; p < placements.length; p++) {
+                sum += this.distances[p][placements[p]] & 0xFF;
+            }
+            return sum;
+        }
+
+        /**
+         * BFS from the goal over the placements of the pattern tiles, where a
+         * tile can move into any close cell not taken by another pattern tile.
+         */
+        private static byte[] build(int side, int[] pattern) {
+            int size = side * side;
+            int tiles = pattern.length;
+            int[] weights = new int[tiles];
+            for (int t = 0; t < tiles; t++) {
+                weights[t] = (int) Math.pow(size, tiles - 1 - t);
+            }
+
+            byte[] distances = new byte[(int) Math.pow(size, tiles)];
+            Arrays.fill(distances, UNVISITED);
+            int[] queue = new int[distances.length];
+            int head = 0;
+            int tail = 0;
+
+            int goal = 0;
+            for (int t = 0; t < tiles; t++) {
+                goal += (pattern[t] - 1) * weights[t];
+            }
+            distances[goal] = 0;
+            queue[tail++] = goal;
+
+            int[] cells = new int[tiles];
+            while (head != tail) {
+                int placement = queue[head++];
+                byte next = (byte) (distances[placement] + 1);
+
+                // Decode the cells of the pattern tiles
+                int occupied = 0;
+                for (int t = tiles - 1, rest = placement; t >= 0; t--, rest /= size) {
+                    cells[t] = rest % size;
+                    occupied |= 1 << cells[t];
+                }
+
+                for (int t = 0; t < tiles; t++) {
+                    for (int neighbour : SlidingState.neighbours(side, cells[t])) {
+                        if ((occupied & (1 << neighbour)) != 0) {
+                            continue;
+                        }
+                        int nextPlacement = placement + (neighbour - cells[t]) * weights[t];
+                        if (distances[nextPlacement] == UNVISITED) {
+                            distances[nextPlacement] = next;
+                            queue[tail++] = nextPlacement;
+                        }
+                    }
+                }
+            }
+            return distances;
+        }
+    }
+}
@@ -0,0 +1,304 @@
+package the8puzzle;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Headless state of an NxN sliding puzzle (the 8-puzzle generalized to the
+ * 15-puzzle, 24-puzzle...).
+ *
+ * Positions and labels work as in EightState: position p (1...N*N) is solved
+ * when it holds label p, and the hole (label 0) belongs to the last position.
+ * Legality of moves is checked with neighbour tables precomputed for every
+ * supported side.
+ *
+ * @author Antonio
+ */
+public final class SlidingState {
+
+    public static final int MIN_SIDE = 2;
+    public static final int MAX_SIDE = 5;
+
+    /**
+     * NEIGHBOURS[side][i] lists the cells (0-based) close to cell i.
+     */
+    private static final int[][][] NEIGHBOURS = new int[MAX_SIDE + 1][][];
+
+    static {
+        for (int side = MIN_SIDE; side <= MAX_SIDE; side++) {
+            int cells = side * side;
+            NEIGHBOURS[side] = new int[cells][];
+            for (int i = 0; i < cells; i++) {
+                int row = i / side;
+                int column = i % side;
+                int[] candidates = new int[4];
+                int count = 0;
+                if (row > 0) {
+                    candidates[count++] = i - side;
+                }
+                if (column > 0) {
+                    candidates[count++] = i - 1;
+                }
+                if (column < side - 1) {
+                    candidates[count++] = i + 1;
+                }
+                if (row < side - 1) {
+                    candidates[count++] = i + side;
+                }
+                NEIGHBOURS[side][i] = Arrays.copyOf(candidates, count);
+            }
+        }
+    }
+
+    // Game logic
+    private final int side;
+    private final byte[] cells;
+    private int hole;
+
+    /**
+     * Creates a solved board.
+     *
+     * @param side The number of rows (and columns) of the board.
+     */
+    public SlidingState(int side) {
+        checkSide(side);
+        this.side = side;
+        this.cells = new byte[side * side];
+        for (int i = 0; i < this.cells.length - 1; i++) {
+            this.cells[i] = (byte) (i + 1);
+        }
+        this.hole = this.cells.length - 1;
+    }
+
+    /**
+     * @param side   The number of rows (and columns) of the board.
+     * @param labels Labels of the tiles, by position (0 is the hole).
+     */
+    public SlidingState(int side, int[] labels) {
+        checkSide(side);
+        this.side = side;
+        this.cells = new byte[side * side];
+        setLabels(labels);
+    }
+
+    public SlidingState(SlidingState other) {
+        this.side = other.side;
+        this.cells = other.cells.clone();
+        this.hole = other.hole;
+    }
+
+    private static void checkSide(int side) {
+        if (side < MIN_SIDE || side > MAX_SIDE) {
+            throw new IllegalArgumentException("Side must be between " + MIN_SIDE + " and " + MAX_SIDE + ": " + side);
+        }
+    }
+
+    /**
+     * @param labels Labels of the tiles, by position (0 is the hole).
+     */
+    public void setLabels(int[] labels) {
+        if (labels.length != this.cells.length) {
+            throw new IllegalArgumentException("Expected " + this.cells.length + " labels, got " + labels.length);
+        }
+
+        // Check the whole array first, so that the state is left as it is if
+        // the labels are not valid
+        boolean[] seen = new boolean[labels.length];
+        for (int label : labels) {
+            if (label < 0 || label >= labels.length || seen[label]) {
+                throw new IllegalArgumentException("Labels are not a permutation: " + Arrays.toString(labels));
+            }
+            seen[label] = true;
+        }
+
+        for (int i = 0; i < labels.length; i++) {
+            this.cells[i] = (byte) labels[i];
+            if (labels[i] == 0) {
+                this.hole = i;
+            }
+        }
+    }
+
+    /**
+     * @return The labels of the tiles, by position (0 is the hole).
+     */
+    public int[] getLabels() {
+        int[] labels = new int[this.cells.length];
+        for (int i = 0; i < labels.length; i++) {
+            labels[i] = this.cells[i];
+        }
+        return labels;
+    }
+
+    public int getSide() {
+        return this.side;
+    }
+
+    /**
+     * @return The number of positions of the board.
+     */
+    public int getSize() {
+        return this.cells.length;
+    }
+
+    /**
+     * @param position A position (1...N*N).
+     * @return The label of the tile in that position.
+     */
+    public int getLabel(int position) {
+        return this.cells[position - 1];
+    }
+
+    /**
+     * @return The position (1...N*N) of the hole.
+     */
+    public int getHolePosition() {
+        return this.hole + 1;
+    }
+
+    /**
+     * @return True if all the tiles are in their position.
+     */
+    public boolean isSolved() {
+        for (int i = 0; i < this.cells.length - 1; i++) {
+            if (this.cells[i] != i + 1) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param position The position (1...N*N) of the tile to move.
+     * @return True if the tile is close to the hole, false otherwise.
+     */
+    public boolean canMove(int position) {
+        for (int neighbour : NEIGHBOURS[this.side][this.hole]) {
+            if (neighbour == position - 1) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Move the tile in the given position into the hole (if allowed).
+     *
+     * @param position The position (1...N*N) of the tile to move.
+     * @return True if the move has been done, false if it is not allowed.
+     */
+    public boolean move(int position) {
+        if (!canMove(position)) {
+            return false;
+        }
+        this.cells[this.hole] = this.cells[position - 1];
+        this.cells[position - 1] = 0;
+        this.hole = position - 1;
+        return true;
+    }
+
+    /**
+     * Flip the labels of the first two tiles (only allowed when the hole is in
+     * the last position).
+     *
+     * @return True if the flip has been done, false otherwise.
+     */
+    public boolean flip() {
+        if (this.hole != this.cells.length - 1) {
+            return false;
+        }
+        byte swap = this.cells[0];
+        this.cells[0] = this.cells[1];
+        this.cells[1] = swap;
+        return true;
+    }
+
+    /**
+     * @return True if the goal can be reached from this state.
+     */
+    public boolean isSolvable() {
+        return isSolvable(this.side, getLabels());
+    }
+
+    /**
+     * Every move swaps the hole with a tile, flipping both the parity of the
+     * permutation (with respect to the goal) and the one of the distance of
+     * the hole from its goal cell: a board is solvable iff they match.
+     *
+     * @param side   The number of rows (and columns) of the board.
+     * @param labels Labels of the tiles, by position (0 is the hole).
+     * @return True if the goal can be reached.
+     */
+    public static boolean isSolvable(int side, int[] labels) {
+        int size = labels.length;
+        boolean[] visited = new boolean[size];
+        int cycles = 0;
+        int hole = 0;
+        for (int i = 0; i < size; i++) {
+            if (labels[i] == 0) {
+                hole = i;
+            }
+            if (visited[i]) {
+                continue;
+            }
+
+            // Follow the cycle: cell j holds the tile whose goal cell is next
+            cycles++;
+            for (int j = i; !visited[j]; j = labels[j] == 0 ? size - 1 : labels[j] - 1) {
+                visited[j] = true;
+            }
+        }
+
+        int permutationParity = (size - cycles) & 1;
+        int holeDistance = (side - 1 - hole / side) + (side - 1 - hole % side);
+        return permutationParity == (holeDistance & 1);
+    }
+
+    /**
+     * Shuffle the labels with Fisher-Yates, then swap the first two tiles (not
+     * the hole) if the result is not solvable.
+     *
+     * @param side   The number of rows (and columns) of the board.
+     * @param random The source of randomness.
+     * @return Labels of a random solvable board, by position.
+     */
+    public static int[] randomSolvable(int side, SplittableRandom random) {
+        checkSide(side);
+        int[] labels = new int[side * side];
+        for (int i = 0; i < labels.length; i++) {
+            labels[i] = i;
+        }
+        for (int i = labels.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int swap = labels[i];
+            labels[i] = labels[j];
+            labels[j] = swap;
+        }
+
+        if (!isSolvable(side, labels)) {
+            int first = labels[0] != 0 ? 0 : 1;
+            int second = labels[first + 1] != 0 ? first + 1 : first + 2;
+            int swap = labels[first];
+            labels[first] = labels[second];
+            labels[second] = swap;
+        }
+        return labels;
+    }
+
+    /**
+     * @param side  The number of rows (and columns) of the board.
+     * @param index A cell (0-based).
+     * @return The cells (0-based) close to it. The array must not be modified.
+     */
+    static int[] neighbours(int side, int index) {
+        return NEIGHBOURS[side][index];
+    }
+
+    /**
+     * @return The cells of the board (0-based), to be used by the solver
+     *         without copying. The array must not be modified.
+     */
+    byte[] cells() {
+        return this.cells;
+    }
+}
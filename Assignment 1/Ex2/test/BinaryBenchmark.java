@@ -0,0 +1,83 @@
+package test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import xmllib.BinaryReader;
+import xmllib.BinarySerializer;
+import xmllib.XMLSerializer;
+
+/**
+ * Compares size and speed of XMLSerializer and BinarySerializer on the same
+ * Student/Teacher objects, reporting the fastest of some rounds, and checks
+ * that a graph of courses (shared and cyclic references) is read back.
+ */
+public class BinaryBenchmark {
+    private static final int OBJECTS = 200_000;
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) throws IOException, ReflectiveOperationException {
+        Object[] arr = new Object[OBJECTS];
+        for (int i = 0; i < OBJECTS; i++) {
+            arr[i] = i % 2 == 0 ? new Student("Name" + i, "Surname" + i, 18 + i % 10)
+                    : new Teacher(i, "Teacher " + i, 30 + i % 40);
+        }
+
+        long xmlNanos = Long.MAX_VALUE;
+        long binaryNanos = Long.MAX_VALUE;
+        long readNanos = Long.MAX_VALUE;
+        Object[] read = null;
+        for (int i = 0; i < ROUNDS; i++) {
+            long start = System.nanoTime();
+            XMLSerializer.serialize(arr, "benchmark");
+            xmlNanos = Math.min(xmlNanos, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            BinarySerializer.serialize(arr, "benchmark");
+            binaryNanos = Math.min(binaryNanos, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            read = BinaryReader.deserialize("benchmark");
+            readNanos = Math.min(readNanos, System.nanoTime() - start);
+        }
+
+        File xmlFile = new File("benchmark.xml");
+        File binaryFile = new File("benchmark.bin");
+        System.out.printf("XML:    %,d bytes, written in %.1f ms%n", xmlFile.length(), xmlNanos / 1e6);
+        System.out.printf("Binary: %,d bytes, written in %.1f ms, read in %.1f ms%n", binaryFile.length(),
+                binaryNanos / 1e6, readNanos / 1e6);
+        System.out.printf("Binary is %.1fx smaller and %.1fx faster to write%n",
+                (double) xmlFile.length() / binaryFile.length(), (double) xmlNanos / binaryNanos);
+        System.out.println("Objects read back: " + read.length);
+        System.out.println("Course graph read back: " + (checkCourses() ? "ok" : "FAILED"));
+
+        xmlFile.delete();
+        binaryFile.delete();
+    }
+
+    /**
+     * @return True if two courses sharing a teacher and a student, and being
+     *         each other's prerequisite, are read back the same way.
+     */
+    private static boolean checkCourses() throws IOException, ReflectiveOperationException {
+        Student student = new Student("Antonio", "Strippoli", 24);
+        Teacher teacher = new Teacher(0, "Nome Cognome", 30);
+        Course course1 = new Course("Advanced Programming", teacher, new int[] { 1, 2 });
+        course1.addStudent(student, 9);
+        Course course2 = new Course("Programming & Algorithms", teacher, new int[] { 3 });
+        course2.addStudent(student, 6);
+        course1.prerequisite = course2;
+        course2.prerequisite = course1;
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        BinarySerializer.serialize(new Object[] { student, course1 }, bytes);
+        Object[] read = BinaryReader.deserialize(new ByteArrayInputStream(bytes.toByteArray()));
+
+        Course first = (Course) read[1];
+        Course second = first.prerequisite;
+        return second.prerequisite == first && first.teacher == second.teacher && first.teacher != null
+                && first.students.get(0) == read[0] && second.students.get(0) == read[0]
+                && second.title.equals(course2.title);
+    }
+}
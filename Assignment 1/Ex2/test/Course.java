@@ -0,0 +1,48 @@
+package test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import xmllib.XMLfield;
+import xmllib.XMLable;
+
+@XMLable
+public class Course {
+    @XMLfield(type = "String")
+    public String title;
+
+    @XMLfield(type = "Teacher")
+    public Teacher teacher;
+
+    @XMLfield(type = "List")
+    public List<Student> students;
+
+    @XMLfield(type = "int[]", name = "rooms")
+    private int[] roomNumbers;
+
+    @XMLfield(type = "Map")
+    private Map<String, Integer> credits;
+
+    @XMLfield(type = "Course")
+    public Course prerequisite;
+
+    public Course() {
+        this.students = new ArrayList<>();
+        this.roomNumbers = new int[0];
+        this.credits = new HashMap<>();
+    }
+
+    public Course(String title, Teacher teacher, int[] roomNumbers) {
+        this();
+        this.title = title;
+        this.teacher = teacher;
+        this.roomNumbers = roomNumbers;
+    }
+
+    public void addStudent(Student student, int credits) {
+        this.students.add(student);
+        this.credits.put(student.lastName, credits);
+    }
+}
@@ -0,0 +1,67 @@
+package test;
+
+import xmllib.XMLEscaper;
+
+/**
+ * Rough benchmark of the overhead of XML escaping on typical Student/Teacher
+ * data, compared with appending the raw values.
+ * Each value is written as a whole field element, as XMLSerializer does.
+ * The fastest round of each kind is reported, as the least noisy estimate of
+ * the steady state.
+ */
+public class EscapeBenchmark {
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int MEASURED_ROUNDS = 30;
+    private static final int VALUES_PER_ROUND = 2_000_000;
+
+    public static void main(String[] args) {
+        // Typical values of Student/Teacher fields
+        String[] values = { "Antonio", "Strippoli", "Nome Cognome", "Mario", "Rossi", "Giuseppe Verdi" };
+        StringBuilder xmlText = new StringBuilder(1 << 20);
+
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            runRaw(values, xmlText);
+            runEscaped(values, xmlText);
+        }
+
+        long rawNanos = Long.MAX_VALUE;
+        long escapedNanos = Long.MAX_VALUE;
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            rawNanos = Math.min(rawNanos, runRaw(values, xmlText));
+            escapedNanos = Math.min(escapedNanos, runEscaped(values, xmlText));
+        }
+
+        double rawMs = rawNanos / 1e6;
+        double escapedMs = escapedNanos / 1e6;
+        System.out.printf("Raw append:     %.2f ms/round%n", rawMs);
+        System.out.printf("Escaped append: %.2f ms/round%n", escapedMs);
+        System.out.printf("Overhead:       %.1f%% (%.2f ns/value)%n", (escapedMs / rawMs - 1) * 100,
+                (escapedNanos - rawNanos) / (double) VALUES_PER_ROUND);
+    }
+
+    private static long runRaw(String[] values, StringBuilder xmlText) {
+        long start = System.nanoTime();
+        for (int i = 0; i < VALUES_PER_ROUND; i++) {
+            if (xmlText.length() > (1 << 20)) {
+                xmlText.setLength(0);
+            }
+            xmlText.append("\t\t<name type=\"String\">");
+            xmlText.append(values[i % values.length]);
+            xmlText.append("</name>\n");
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static long runEscaped(String[] values, StringBuilder xmlText) {
+        long start = System.nanoTime();
+        for (int i = 0; i < VALUES_PER_ROUND; i++) {
+            if (xmlText.length() > (1 << 20)) {
+                xmlText.setLength(0);
+            }
+            xmlText.append("\t\t<name type=\"String\">");
+            XMLEscaper.escape(values[i % values.length], xmlText);
+            xmlText.append("</name>\n");
+        }
+        return System.nanoTime() - start;
+    }
+}
@@ -16,8 +16,16 @@ public class Main {
         Teacher teacher1 = new Teacher(0, "Nome Cognome", 30);
         Teacher teacher2 = new Teacher();
 
+        // Courses (sharing objects and referencing each other)
+        Course course1 = new Course("Advanced Programming", teacher1, new int[] { 1, 2 });
+        course1.addStudent(student1, 9);
+        Course course2 = new Course("Programming & Algorithms", teacher1, new int[] { 3 });
+        course2.addStudent(student1, 6);
+        course1.prerequisite = course2;
+        course2.prerequisite = course1;
+
         // Serialize all the objects
-        Object[] arr = {student1, student2, string1, teacher1, teacher2};
+        Object[] arr = {student1, student2, string1, teacher1, teacher2, course1};
         try {
             XMLSerializer.serialize(arr, "output");
         }catch (IOException | IllegalAccessException e){
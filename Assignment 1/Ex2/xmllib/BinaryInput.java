@@ -0,0 +1,143 @@
+package xmllib;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Buffered input of BinaryReader, decoding what BinaryOutput encodes.
+ *
+ * The stream is not trusted: varints must fit where they are used, and
+ * strings are only allocated as far as the stream actually goes.
+ */
+final class BinaryInput {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final InputStream in;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int position;
+    private int limit;
+
+    BinaryInput(InputStream in) {
+        this.in = in;
+    }
+
+    /**
+     * @return False if the stream is over.
+     */
+    private boolean fill() throws IOException {
+        int read = this.in.read(this.buffer, 0, this.buffer.length);
+        this.position = 0;
+        this.limit = Math.max(read, 0);
+        return read > 0;
+    }
+
+    int readUnsignedByte() throws IOException {
+        if (this.position == this.limit && !fill()) {
+            throw new EOFException("Truncated binary XMLable stream.");
+        }
+        return this.buffer[this.position++] & 0xFF;
+    }
+
+    byte readByte() throws IOException {
+        return (byte) readUnsignedByte();
+    }
+
+    boolean readBoolean() throws IOException {
+        return readUnsignedByte() != 0;
+    }
+
+    int readInt() throws IOException {
+        int value = 0;
+        for (int i = 0; i < 4; i++) {
+            value = (value << 8) | readUnsignedByte();
+        }
+        return value;
+    }
+
+    long readLong() throws IOException {
+        long value = 0;
+        for (int i = 0; i < 8; i++) {
+            value = (value << 8) | readUnsignedByte();
+        }
+        return value;
+    }
+
+    float readFloat() throws IOException {
+        return Float.intBitsToFloat(readInt());
+    }
+
+    double readDouble() throws IOException {
+        return Double.longBitsToDouble(readLong());
+    }
+
+    long readVarLong() throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint.");
+    }
+
+    /**
+     * Read a non-negative varint (a length, an index or a char).
+     */
+    int readVarInt() throws IOException {
+        long value = readVarLong();
+        if (value < 0 || value > Integer.MAX_VALUE) {
+            throw new IOException("Varint out of range: " + value);
+        }
+        return (int) value;
+    }
+
+    long readZigzag() throws IOException {
+        long value = readVarLong();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * Read a non-negative varint which is the length of something allocated
+     * up front (an array or a collection).
+     */
+    int readLength(int max) throws IOException {
+        int length = readVarInt();
+        if (length > max) {
+            throw new IOException("Length out of range: " + length);
+        }
+        return length;
+    }
+
+    String readString() throws IOException {
+        int length = readVarInt();
+        if (length == 0) {
+            return null;
+        }
+
+        int size = length - 1;
+        if (size <= this.limit - this.position) {
+            String string = new String(this.buffer, this.position, size, StandardCharsets.UTF_8);
+            this.position += size;
+            return string;
+        }
+
+        // Longer than what is buffered: readNBytes grows its buffer as bytes
+        // arrive, so a corrupted length cannot allocate more than the stream
+        // holds
+        int buffered = this.limit - this.position;
+        byte[] rest = this.in.readNBytes(size - buffered);
+        if (rest.length != size - buffered) {
+            throw new EOFException("Truncated string.");
+        }
+        byte[] bytes = new byte[size];
+        System.arraycopy(this.buffer, this.position, bytes, 0, buffered);
+        System.arraycopy(rest, 0, bytes, buffered, rest.length);
+        this.position = this.limit;
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
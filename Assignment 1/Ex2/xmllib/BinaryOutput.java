@@ -0,0 +1,144 @@
+package xmllib;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Buffered output of BinarySerializer, with the encodings of the binary
+ * format (varints, zigzag, length-prefixed strings, big-endian numbers).
+ *
+ * Bytes are stored in a plain array and written to the stream in chunks:
+ * DataOutputStream over a BufferedOutputStream takes a lock for every byte.
+ */
+final class BinaryOutput {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    // Longest encoding of a varint
+    private static final int MAX_VARINT_SIZE = 10;
+
+    private final OutputStream out;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int position;
+
+    BinaryOutput(OutputStream out) {
+        this.out = out;
+    }
+
+    private void ensureRemaining(int bytes) throws IOException {
+        if (this.buffer.length - this.position < bytes) {
+            flushBuffer();
+        }
+    }
+
+    private void flushBuffer() throws IOException {
+        this.out.write(this.buffer, 0, this.position);
+        this.position = 0;
+    }
+
+    /**
+     * Write the buffered bytes and flush the stream.
+     */
+    void flush() throws IOException {
+        flushBuffer();
+        this.out.flush();
+    }
+
+    void writeByte(int value) throws IOException {
+        ensureRemaining(1);
+        this.buffer[this.position++] = (byte) value;
+    }
+
+    void writeBoolean(boolean value) throws IOException {
+        writeByte(value ? 1 : 0);
+    }
+
+    void writeInt(int value) throws IOException {
+        ensureRemaining(4);
+        for (int shift = 24; shift >= 0; shift -= 8) {
+            this.buffer[this.position++] = (byte) (value >>> shift);
+        }
+    }
+
+    void writeLong(long value) throws IOException {
+        ensureRemaining(8);
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            this.buffer[this.position++] = (byte) (value >>> shift);
+        }
+    }
+
+    void writeFloat(float value) throws IOException {
+        writeInt(Float.floatToIntBits(value));
+    }
+
+    void writeDouble(double value) throws IOException {
+        writeLong(Double.doubleToLongBits(value));
+    }
+
+    /**
+     * Write an unsigned value using 7 bits per byte (LEB128).
+     */
+    void writeVarLong(long value) throws IOException {
+        ensureRemaining(MAX_VARINT_SIZE);
+        while ((value & ~0x7FL) != 0) {
+            this.buffer[this.position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        this.buffer[this.position++] = (byte) value;
+    }
+
+    void writeVarInt(int value) throws IOException {
+        writeVarLong(value & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Write a signed value with the zigzag encoding, so that small negative
+     * values are encoded in few bytes too.
+     */
+    void writeZigzag(long value) throws IOException {
+        writeVarLong((value << 1) ^ (value >> 63));
+    }
+
+    /**
+     * Write a string as its UTF-8 length + 1 (0 for null) followed by its bytes.
+     * ASCII strings (the common case) are copied without encoding them first.
+     */
+    void writeString(String string) throws IOException {
+        if (string == null) {
+            writeVarInt(0);
+            return;
+        }
+
+        int length = string.length();
+        if (length < BUFFER_SIZE - MAX_VARINT_SIZE) {
+            ensureRemaining(MAX_VARINT_SIZE + length);
+            int start = this.position;
+            writeVarInt(length + 1);
+            int i = 0;
+            while (i < length) {
+                char c = string.charAt(i);
+                if (c >= 0x80) {
+                    break;
+                }
+                this.buffer[this.position++] = (byte) c;
+                i++;
+            }
+            if (i == length) {
+                return;
+            }
+            // Not ASCII: take back what has been written
+            this.position = start;
+        }
+
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(bytes.length + 1);
+        if (bytes.length <= this.buffer.length - this.position) {
+            System.arraycopy(bytes, 0, this.buffer, this.position, bytes.length);
+            this.position += bytes.length;
+        } else {
+            flushBuffer();
+            this.out.write(bytes);
+        }
+    }
+}
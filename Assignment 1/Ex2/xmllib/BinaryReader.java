@@ -0,0 +1,504 @@
+package xmllib;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+
+/**
+ * Reads back the objects written by BinarySerializer.
+ *
+ * Classes are matched by name and fields by their XMLfield name, so fields
+ * that are no longer present in the class, or whose value does not fit their
+ * type, are skipped, while new ones keep the value given by the no-args
+ * constructor. Lists are read back as ArrayList, sets as LinkedHashSet and
+ * maps as LinkedHashMap.
+ *
+ * The stream is not trusted: classes are loaded without being initialized and
+ * must be XMLable (or enums) before anything else is done with them, and
+ * lengths are checked before anything is allocated for them.
+ */
+public class BinaryReader {
+
+    // A class file cannot declare more fields than this
+    private static final int MAX_FIELDS = 0xFFFF;
+
+    // Arrays and collections are allocated up front (an object graph can refer
+    // back to them before they are complete), so their length is bounded
+    private static final int MAX_LENGTH = 1 << 24;
+
+    // Objects are allocated as they are read, starting from this capacity
+    private static final int INITIAL_CAPACITY = 1024;
+
+    /**
+     * Represents a field of a schema read from the stream.
+     */
+    private static class FieldSchema {
+        private final char typeCode;
+        private final Field field;
+
+        public FieldSchema(char typeCode, Field field) {
+            this.typeCode = typeCode;
+            this.field = field;
+        }
+    }
+
+    /**
+     * Represents the schema of a class read from the stream.
+     */
+    private static class ClassSchema {
+        private final Constructor<?> constructor;
+        private final FieldSchema[] fields;
+
+        public ClassSchema(Constructor<?> constructor, FieldSchema[] fields) {
+            this.constructor = constructor;
+            this.fields = fields;
+        }
+    }
+
+    /**
+     * Represents a pending step of the deserialization: either the next value
+     * of the stream, to be stored in a field of an object or in an element of
+     * an array, or filling a collection once all its elements have been read.
+     */
+    private static class Slot {
+        private final Object target;
+        private final FieldSchema field;
+        private final int index;
+        private final Object container;
+
+        private Slot(Object target, FieldSchema field, int index, Object container) {
+            this.target = target;
+            this.field = field;
+            this.index = index;
+            this.container = container;
+        }
+
+        public static Slot field(Object object, FieldSchema field) {
+            return new Slot(object, field, 0, null);
+        }
+
+        public static Slot element(Object[] array, int index) {
+            return new Slot(array, null, index, null);
+        }
+
+        public static Slot fill(Object container, Object[] elements) {
+            return new Slot(elements, null, 0, container);
+        }
+    }
+
+    /**
+     * State shared by all the objects deserialized from the same stream.
+     */
+    private static class Deserialization {
+        private final BinaryInput in;
+        private final ArrayList<ClassSchema> schemas = new ArrayList<>();
+        private final ArrayList<Object> objects = new ArrayList<>(INITIAL_CAPACITY);
+        private final ArrayDeque<Slot> stack = new ArrayDeque<>();
+
+        public Deserialization(BinaryInput in) {
+            this.in = in;
+        }
+    }
+
+    /**
+     * Deserialize the objects from the file "fileName.bin".
+     *
+     * @return The objects, in the order they were serialized. Objects that were
+     *         not XMLable are returned as null.
+     */
+    public static Object[] deserialize(String fileName) throws IOException, ReflectiveOperationException {
+        try (InputStream inputStream = new FileInputStream(fileName + ".bin")) {
+            return deserialize(inputStream);
+        }
+    }
+
+    /**
+     * Deserialize the objects from an input stream (which is not closed).
+     */
+    public static Object[] deserialize(InputStream inputStream) throws IOException, ReflectiveOperationException {
+        BinaryInput in = new BinaryInput(inputStream);
+
+        // Header
+        if (in.readInt() != BinarySerializer.MAGIC) {
+            throw new IOException("Not a binary XMLable stream.");
+        }
+        byte version = in.readByte();
+        if (version != BinarySerializer.VERSION) {
+            throw new IOException("Unsupported binary XMLable version: " + version);
+        }
+        int length = in.readVarInt();
+
+        // Deserialize objects (the length is only trusted as far as the
+        // stream goes, so the array is not allocated up front)
+        Deserialization deserialization = new Deserialization(in);
+        ArrayList<Object> objects = new ArrayList<>(Math.min(length, INITIAL_CAPACITY));
+        Object[] holder = new Object[1];
+        for (int i = 0; i < length; i++) {
+            deserialization.stack.push(Slot.element(holder, 0));
+            while (!deserialization.stack.isEmpty()) {
+                deserializeSlot(deserialization.stack.pop(), deserialization);
+            }
+            objects.add(holder[0]);
+        }
+
+        return objects.toArray();
+    }
+
+    private static ClassSchema getClassSchema(int tag, Deserialization deserialization)
+            throws IOException, ReflectiveOperationException {
+        // A new index is always followed by its schema
+        ArrayList<ClassSchema> schemas = deserialization.schemas;
+        int classIndex = tag - BinarySerializer.VALUE_OBJECT + 1;
+        if (classIndex == schemas.size() + 1) {
+            schemas.add(readSchema(deserialization.in));
+        } else if (classIndex > schemas.size()) {
+            throw new IOException("Unknown class index: " + classIndex);
+        }
+        return schemas.get(classIndex - 1);
+    }
+
+    private static ClassSchema readSchema(BinaryInput in) throws IOException, ReflectiveOperationException {
+        // Do not run static initializers of classes which are not XMLable
+        Class<?> klass = loadClass(in);
+        if (!klass.isAnnotationPresent(XMLable.class)) {
+            throw new IOException(klass.getName() + " is not XMLable.");
+        }
+
+        Constructor<?> constructor = klass.getDeclaredConstructor();
+        constructor.setAccessible(true);
+
+        // Match the local fields by their serialized name
+        HashMap<String, Field> localFields = new HashMap<>();
+        for (Field field : klass.getDeclaredFields()) {
+            XMLfield annotation = field.getAnnotation(XMLfield.class);
+            if (annotation != null) {
+                localFields.put(annotation.name().equals("") ? field.getName() : annotation.name(), field);
+            }
+        }
+
+        int fieldCount = in.readLength(MAX_FIELDS);
+        FieldSchema[] fields = new FieldSchema[fieldCount];
+        for (int i = 0; i < fields.length; i++) {
+            String name = in.readString();
+            char typeCode = (char) in.readUnsignedByte();
+
+            // Fields missing or with a different type are skipped
+            Field field = localFields.get(name);
+            if (field != null && BinarySerializer.typeCodeOf(field.getType()) == typeCode) {
+                field.setAccessible(true);
+            } else {
+                field = null;
+            }
+            fields[i] = new FieldSchema(typeCode, field);
+        }
+
+        return new ClassSchema(constructor, fields);
+    }
+
+    /**
+     * Load, without initializing it, the class whose name is next in the stream.
+     */
+    private static Class<?> loadClass(BinaryInput in) throws IOException, ClassNotFoundException {
+        String className = in.readString();
+        if (className == null) {
+            throw new IOException("Missing class name.");
+        }
+        return Class.forName(className, false, BinaryReader.class.getClassLoader());
+    }
+
+    private static void deserializeSlot(Slot slot, Deserialization deserialization)
+            throws IOException, ReflectiveOperationException {
+        // Collections are filled once complete, as the hash of their elements
+        // may depend on the elements' own content
+        if (slot.container != null) {
+            Object[] elements = (Object[]) slot.target;
+            if (slot.container instanceof Map) {
+                Map<Object, Object> map = castMap(slot.container);
+                for (int i = 0; i < elements.length; i += 2) {
+                    map.put(elements[i], elements[i + 1]);
+                }
+            } else {
+                castCollection(slot.container).addAll(Arrays.asList(elements));
+            }
+            return;
+        }
+
+        if (slot.field == null) {
+            try {
+                ((Object[]) slot.target)[slot.index] = deserializeValue(deserialization);
+            } catch (ArrayStoreException e) {
+                throw new IOException("Invalid array element: " + e.getMessage());
+            }
+            return;
+        }
+
+        BinaryInput in = deserialization.in;
+        Object object = slot.target;
+        Field field = slot.field.field;
+        switch (slot.field.typeCode) {
+            case BinarySerializer.TYPE_INT: {
+                int value = (int) in.readZigzag();
+                if (field != null) {
+                    field.setInt(object, value);
+                }
+                break;
+            }
+            case BinarySerializer.TYPE_LONG: {
+                long value = in.readZigzag();
+                if (field != null) {
+                    field.setLong(object, value);
+                }
+                break;
+            }
+            case BinarySerializer.TYPE_SHORT: {
+                short value = (short) in.readZigzag();
+                if (field != null) {
+                    field.setShort(object, value);
+                }
+                break;
+            }
+            case BinarySerializer.TYPE_BYTE: {
+                byte value = in.readByte();
+                if (field != null) {
+                    field.setByte(object, value);
+                }
+                break;
+            }
+            case BinarySerializer.TYPE_CHAR: {
+                char value = (char) in.readVarInt();
+                if (field != null) {
+                    field.setChar(object, value);
+                }
+                break;
+            }
+            case BinarySerializer.TYPE_BOOLEAN: {
+                boolean value = in.readBoolean();
+                if (field != null) {
+                    field.setBoolean(object, value);
+                }
+                break;
+            }
+            case BinarySerializer.TYPE_FLOAT: {
+                float value = in.readFloat();
+                if (field != null) {
+                    field.setFloat(object, value);
+                }
+                break;
+            }
+            case BinarySerializer.TYPE_DOUBLE: {
+                double value = in.readDouble();
+                if (field != null) {
+                    field.setDouble(object, value);
+                }
+                break;
+            }
+            case BinarySerializer.TYPE_STRING: {
+                String value = in.readString();
+                if (field != null) {
+                    field.set(object, value);
+                }
+                break;
+            }
+            case BinarySerializer.TYPE_OBJECT: {
+                Object value = deserializeValue(deserialization);
+                if (field != null && (value == null || field.getType().isInstance(value))) {
+                    field.set(object, value);
+                }
+                break;
+            }
+            default:
+                throw new IOException("Unknown type code: " + slot.field.typeCode);
+        }
+    }
+
+    /**
+     * Read a tagged value. Objects and containers are returned empty, with
+     * their content scheduled on the stack, after they have got their id.
+     */
+    private static Object deserializeValue(Deserialization deserialization)
+            throws IOException, ReflectiveOperationException {
+        BinaryInput in = deserialization.in;
+        ArrayList<Object> objects = deserialization.objects;
+        ArrayDeque<Slot> stack = deserialization.stack;
+
+        int tag = in.readVarInt();
+        switch (tag) {
+            case BinarySerializer.VALUE_NULL:
+            case BinarySerializer.VALUE_NOT_XMLABLE:
+                return null;
+            case BinarySerializer.VALUE_REFERENCE: {
+                int id = in.readVarInt();
+                if (id < 1 || id > objects.size()) {
+                    throw new IOException("Unknown reference: " + id);
+                }
+                return objects.get(id - 1);
+            }
+            case BinarySerializer.VALUE_STRING:
+                return in.readString();
+            case BinarySerializer.VALUE_BOOLEAN:
+                return in.readBoolean();
+            case BinarySerializer.VALUE_BYTE:
+                return in.readByte();
+            case BinarySerializer.VALUE_CHAR:
+                return (char) in.readVarInt();
+            case BinarySerializer.VALUE_SHORT:
+                return (short) in.readZigzag();
+            case BinarySerializer.VALUE_INT:
+                return (int) in.readZigzag();
+            case BinarySerializer.VALUE_LONG:
+                return in.readZigzag();
+            case BinarySerializer.VALUE_FLOAT:
+                return in.readFloat();
+            case BinarySerializer.VALUE_DOUBLE:
+                return in.readDouble();
+            case BinarySerializer.VALUE_ENUM:
+                return deserializeEnum(in);
+            case BinarySerializer.VALUE_PRIMITIVE_ARRAY:
+                return deserializePrimitiveArray(in);
+            case BinarySerializer.VALUE_ARRAY: {
+                Class<?> componentType = loadClass(in);
+                if (componentType.isPrimitive()) {
+                    throw new IOException("Invalid array type: " + componentType.getName());
+                }
+                Object[] array = (Object[]) Array.newInstance(componentType, in.readLength(MAX_LENGTH));
+                objects.add(array);
+                for (int i = array.length - 1; i >= 0; i--) {
+                    stack.push(Slot.element(array, i));
+                }
+                return array;
+            }
+            case BinarySerializer.VALUE_LIST:
+            case BinarySerializer.VALUE_SET:
+            case BinarySerializer.VALUE_MAP: {
+                int size = in.readLength(MAX_LENGTH);
+                Object container;
+                Object[] elements;
+                if (tag == BinarySerializer.VALUE_MAP) {
+                    container = new LinkedHashMap<>();
+                    elements = new Object[2 * size];
+                } else {
+                    container = tag == BinarySerializer.VALUE_SET ? new LinkedHashSet<>() : new ArrayList<>(size);
+                    elements = new Object[size];
+                }
+                objects.add(container);
+                stack.push(Slot.fill(container, elements));
+                for (int i = elements.length - 1; i >= 0; i--) {
+                    stack.push(Slot.element(elements, i));
+                }
+                return container;
+            }
+            default: {
+                if (tag < BinarySerializer.VALUE_OBJECT) {
+                    throw new IOException("Unknown value tag: " + tag);
+                }
+                ClassSchema schema = getClassSchema(tag, deserialization);
+                Object object = schema.constructor.newInstance();
+                objects.add(object);
+                for (int i = schema.fields.length - 1; i >= 0; i--) {
+                    stack.push(Slot.field(object, schema.fields[i]));
+                }
+                return object;
+            }
+        }
+    }
+
+    private static Object deserializeEnum(BinaryInput in) throws IOException, ClassNotFoundException {
+        Class<?> klass = loadClass(in);
+        if (!klass.isEnum()) {
+            throw new IOException(klass.getName() + " is not an enum.");
+        }
+        String name = in.readString();
+        for (Object constant : klass.getEnumConstants()) {
+            if (((Enum<?>) constant).name().equals(name)) {
+                return constant;
+            }
+        }
+        throw new IOException("Unknown constant " + name + " of " + klass.getName());
+    }
+
+    private static Object deserializePrimitiveArray(BinaryInput in) throws IOException {
+        char typeCode = (char) in.readUnsignedByte();
+        int length = in.readLength(MAX_LENGTH);
+        switch (typeCode) {
+            case BinarySerializer.TYPE_INT: {
+                int[] values = new int[length];
+                for (int i = 0; i < length; i++) {
+                    values[i] = (int) in.readZigzag();
+                }
+                return values;
+            }
+            case BinarySerializer.TYPE_LONG: {
+                long[] values = new long[length];
+                for (int i = 0; i < length; i++) {
+                    values[i] = in.readZigzag();
+                }
+                return values;
+            }
+            case BinarySerializer.TYPE_DOUBLE: {
+                double[] values = new double[length];
+                for (int i = 0; i < length; i++) {
+                    values[i] = in.readDouble();
+                }
+                return values;
+            }
+            case BinarySerializer.TYPE_FLOAT: {
+                float[] values = new float[length];
+                for (int i = 0; i < length; i++) {
+                    values[i] = in.readFloat();
+                }
+                return values;
+            }
+            case BinarySerializer.TYPE_SHORT: {
+                short[] values = new short[length];
+                for (int i = 0; i < length; i++) {
+                    values[i] = (short) in.readZigzag();
+                }
+                return values;
+            }
+            case BinarySerializer.TYPE_BYTE: {
+                byte[] values = new byte[length];
+                for (int i = 0; i < length; i++) {
+                    values[i] = in.readByte();
+                }
+                return values;
+            }
+            case BinarySerializer.TYPE_CHAR: {
+                char[] values = new char[length];
+                for (int i = 0; i < length; i++) {
+                    values[i] = (char) in.readVarInt();
+                }
+                return values;
+            }
+            case BinarySerializer.TYPE_BOOLEAN: {
+                boolean[] values = new boolean[length];
+                for (int i = 0; i < length; i++) {
+                    values[i] = in.readBoolean();
+                }
+                return values;
+            }
+            default:
+                throw new IOException("Unknown array type code: " + typeCode);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<Object, Object> castMap(Object map) {
+        return (Map<Object, Object>) map;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Collection<Object> castCollection(Object collection) {
+        return (Collection<Object>) collection;
+    }
+}
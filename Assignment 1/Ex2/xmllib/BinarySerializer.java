@@ -0,0 +1,464 @@
+package xmllib;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Field;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A compact binary alternative to XMLSerializer, driven by the same
+ * XMLable/XMLfield annotations. Objects can be read back with BinaryReader.
+ *
+ * Format (all counts and integers are varints, signed ones zigzag-encoded):
+ * - Header: magic number, version and number of objects;
+ * - Then each object as a value (objects which are not XMLable are written as
+ * VALUE_NOT_XMLABLE).
+ *
+ * A value starts with its tag. XMLable objects are tagged with
+ * VALUE_OBJECT + their class index - 1; the first time a class is seen, its
+ * tag is followed by its schema: class name, number of fields, and name and
+ * type code of each field. Then come the values of the fields, in schema
+ * order: primitives and Strings as they are (Strings as their UTF-8 length + 1,
+ * 0 is null), any other type as a tagged value.
+ *
+ * As in XMLSerializer, object graphs are walked with an explicit stack and
+ * every XMLable object, collection, map and object array gets an id, in the
+ * order they are written: objects seen again are written as VALUE_REFERENCE
+ * and their id, so shared and cyclic references are kept.
+ */
+public class BinarySerializer {
+
+    static final int MAGIC = 0x584D4C42; // "XMLB"
+    static final byte VERSION = 2;
+
+    // Type codes, as in JVM descriptors (T is used for Strings, L for any
+    // other reference, written as a tagged value)
+    static final char TYPE_BOOLEAN = 'Z';
+    static final char TYPE_BYTE = 'B';
+    static final char TYPE_CHAR = 'C';
+    static final char TYPE_SHORT = 'S';
+    static final char TYPE_INT = 'I';
+    static final char TYPE_LONG = 'J';
+    static final char TYPE_FLOAT = 'F';
+    static final char TYPE_DOUBLE = 'D';
+    static final char TYPE_STRING = 'T';
+    static final char TYPE_OBJECT = 'L';
+
+    // Value tags
+    static final int VALUE_NULL = 0;
+    static final int VALUE_NOT_XMLABLE = 1;
+    static final int VALUE_REFERENCE = 2;
+    static final int VALUE_STRING = 3;
+    static final int VALUE_BOOLEAN = 4;
+    static final int VALUE_BYTE = 5;
+    static final int VALUE_CHAR = 6;
+    static final int VALUE_SHORT = 7;
+    static final int VALUE_INT = 8;
+    static final int VALUE_LONG = 9;
+    static final int VALUE_FLOAT = 10;
+    static final int VALUE_DOUBLE = 11;
+    static final int VALUE_ENUM = 12;
+    static final int VALUE_PRIMITIVE_ARRAY = 13;
+    static final int VALUE_ARRAY = 14;
+    static final int VALUE_LIST = 15;
+    static final int VALUE_SET = 16;
+    static final int VALUE_MAP = 17;
+    static final int VALUE_OBJECT = 32;
+
+    /**
+     * Represents the introspection of a field.
+     */
+    private static class FieldStructure {
+        private final String name;
+        private final char typeCode;
+        private final Field field;
+
+        public FieldStructure(String name, char typeCode, Field field) {
+            this.name = name;
+            this.typeCode = typeCode;
+            this.field = field;
+        }
+    }
+
+    /**
+     * Represents the introspection of a class, together with its index in the
+     * stream.
+     */
+    private static class ClassStructure {
+        private final int index;
+        private final String name;
+        private final ArrayList<FieldStructure> fields;
+
+        public ClassStructure(int index, String name, ArrayList<FieldStructure> fields) {
+            this.index = index;
+            this.name = name;
+            this.fields = fields;
+        }
+    }
+
+    /**
+     * Represents a pending step of the serialization: either a field of an
+     * object, or a value.
+     */
+    private static class Task {
+        private final Object value;
+        private final FieldStructure field;
+
+        private Task(Object value, FieldStructure field) {
+            this.value = value;
+            this.field = field;
+        }
+    }
+
+    /**
+     * State shared by all the objects serialized in the same stream.
+     */
+    private static class Serialization {
+        private final BinaryOutput out;
+        private final HashMap<Class<?>, ClassStructure> introspectedClasses = new HashMap<>();
+        private final IdentityHashMap<Object, Integer> ids = new IdentityHashMap<>();
+        private final ArrayDeque<Task> stack = new ArrayDeque<>();
+
+        public Serialization(BinaryOutput out) {
+            this.out = out;
+        }
+    }
+
+    /**
+     * Serialize the objects to the file "fileName.bin".
+     */
+    public static void serialize(Object[] arr, String fileName) throws IOException, IllegalAccessException {
+        try (OutputStream outputStream = new FileOutputStream(fileName + ".bin")) {
+            serialize(arr, outputStream);
+        }
+    }
+
+    /**
+     * Serialize the objects to an output stream (which is not closed).
+     */
+    public static void serialize(Object[] arr, OutputStream outputStream) throws IOException, IllegalAccessException {
+        BinaryOutput out = new BinaryOutput(outputStream);
+
+        // Header
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+        out.writeVarInt(arr.length);
+
+        // Serialize objects
+        Serialization serialization = new Serialization(out);
+        for (Object object : arr) {
+            // Classes without XMLable annotation are not parsable
+            if (object == null || !object.getClass().isAnnotationPresent(XMLable.class)) {
+                out.writeVarInt(VALUE_NOT_XMLABLE);
+                continue;
+            }
+
+            serialization.stack.push(new Task(object, null));
+            while (!serialization.stack.isEmpty()) {
+                Task task = serialization.stack.pop();
+                if (task.field != null) {
+                    serializeField(task.value, task.field, serialization);
+                } else {
+                    serializeValue(task.value, serialization);
+                }
+            }
+        }
+
+        out.flush();
+    }
+
+    private static ClassStructure getClassStructure(Class<?> klass, Serialization serialization) throws IOException {
+        ClassStructure introspectedClass = serialization.introspectedClasses.get(klass);
+        if (introspectedClass == null) {
+            introspectedClass = introspectClass(klass, serialization.introspectedClasses.size() + 1);
+            serialization.introspectedClasses.put(klass, introspectedClass);
+            writeSchema(serialization.out, introspectedClass);
+        } else {
+            serialization.out.writeVarInt(VALUE_OBJECT + introspectedClass.index - 1);
+        }
+        return introspectedClass;
+    }
+
+    private static ClassStructure introspectClass(Class<?> objectClass, int index) {
+        ArrayList<FieldStructure> fields = new ArrayList<>();
+        for (Field field : objectClass.getDeclaredFields()) {
+            // Skip if XMLField annotation is not present
+            XMLfield annotation = field.getAnnotation(XMLfield.class);
+            if (annotation == null) {
+                continue;
+            }
+
+            // Get access to private fields
+            field.setAccessible(true);
+
+            String fieldName = annotation.name().equals("") ? field.getName() : annotation.name();
+            fields.add(new FieldStructure(fieldName, typeCodeOf(field.getType()), field));
+        }
+
+        return new ClassStructure(index, objectClass.getName(), fields);
+    }
+
+    /**
+     * @return The type code of a field type.
+     */
+    static char typeCodeOf(Class<?> type) {
+        if (type == int.class) {
+            return TYPE_INT;
+        } else if (type == long.class) {
+            return TYPE_LONG;
+        } else if (type == short.class) {
+            return TYPE_SHORT;
+        } else if (type == byte.class) {
+            return TYPE_BYTE;
+        } else if (type == char.class) {
+            return TYPE_CHAR;
+        } else if (type == boolean.class) {
+            return TYPE_BOOLEAN;
+        } else if (type == float.class) {
+            return TYPE_FLOAT;
+        } else if (type == double.class) {
+            return TYPE_DOUBLE;
+        } else if (type == String.class) {
+            return TYPE_STRING;
+        }
+        return TYPE_OBJECT;
+    }
+
+    private static void writeSchema(BinaryOutput out, ClassStructure introspectedClass) throws IOException {
+        out.writeVarInt(VALUE_OBJECT + introspectedClass.index - 1);
+        out.writeString(introspectedClass.name);
+        out.writeVarInt(introspectedClass.fields.size());
+        for (FieldStructure field : introspectedClass.fields) {
+            out.writeString(field.name);
+            out.writeByte(field.typeCode);
+        }
+    }
+
+    private static void serializeField(Object object, FieldStructure toUnpack, Serialization serialization)
+            throws IOException, IllegalAccessException {
+        BinaryOutput out = serialization.out;
+        Field field = toUnpack.field;
+        switch (toUnpack.typeCode) {
+            case TYPE_INT:
+                out.writeZigzag(field.getInt(object));
+                break;
+            case TYPE_LONG:
+                out.writeZigzag(field.getLong(object));
+                break;
+            case TYPE_SHORT:
+                out.writeZigzag(field.getShort(object));
+                break;
+            case TYPE_BYTE:
+                out.writeByte(field.getByte(object));
+                break;
+            case TYPE_CHAR:
+                out.writeVarInt(field.getChar(object));
+                break;
+            case TYPE_BOOLEAN:
+                out.writeBoolean(field.getBoolean(object));
+                break;
+            case TYPE_FLOAT:
+                out.writeFloat(field.getFloat(object));
+                break;
+            case TYPE_DOUBLE:
+                out.writeDouble(field.getDouble(object));
+                break;
+            case TYPE_STRING:
+                out.writeString((String) field.get(object));
+                break;
+            default:
+                serializeValue(field.get(object), serialization);
+                break;
+        }
+    }
+
+    /**
+     * Write a tagged value. The children of objects and containers are
+     * scheduled on the stack, after the value has got its id.
+     */
+    private static void serializeValue(Object value, Serialization serialization)
+            throws IOException, IllegalAccessException {
+        BinaryOutput out = serialization.out;
+        if (value == null) {
+            out.writeVarInt(VALUE_NULL);
+            return;
+        }
+
+        // Leaf values
+        if (serializeLeaf(value, out)) {
+            return;
+        }
+
+        // Primitive arrays are written in bulk, as they cannot contain references
+        Class<?> klass = value.getClass();
+        if (klass.isArray() && klass.getComponentType().isPrimitive()) {
+            out.writeVarInt(VALUE_PRIMITIVE_ARRAY);
+            serializePrimitiveArray(value, out);
+            return;
+        }
+
+        // Objects already serialized are written as a back-reference
+        Integer id = serialization.ids.get(value);
+        if (id != null) {
+            out.writeVarInt(VALUE_REFERENCE);
+            out.writeVarInt(id);
+            return;
+        }
+
+        boolean isXMLable = klass.isAnnotationPresent(XMLable.class);
+        if (!isXMLable && !klass.isArray() && !(value instanceof Collection) && !(value instanceof Map)) {
+            out.writeVarInt(VALUE_NOT_XMLABLE);
+            return;
+        }
+
+        serialization.ids.put(value, serialization.ids.size() + 1);
+
+        // Write the header of the value and schedule its children
+        ArrayDeque<Task> stack = serialization.stack;
+        if (isXMLable) {
+            ArrayList<FieldStructure> fields = getClassStructure(klass, serialization).fields;
+
+            // Fields up to the first reference one cannot add anything to the
+            // stack, so they are written right away
+            int inline = 0;
+            while (inline < fields.size() && fields.get(inline).typeCode != TYPE_OBJECT) {
+                serializeField(value, fields.get(inline), serialization);
+                inline++;
+            }
+            for (int i = fields.size() - 1; i >= inline; i--) {
+                stack.push(new Task(value, fields.get(i)));
+            }
+        } else if (value instanceof Map) {
+            Object[] entries = ((Map<?, ?>) value).entrySet().toArray();
+            out.writeVarInt(VALUE_MAP);
+            out.writeVarInt(entries.length);
+            for (int i = entries.length - 1; i >= 0; i--) {
+                Map.Entry<?, ?> entry = (Map.Entry<?, ?>) entries[i];
+                stack.push(new Task(entry.getValue(), null));
+                stack.push(new Task(entry.getKey(), null));
+            }
+        } else {
+            Object[] items;
+            if (klass.isArray()) {
+                items = (Object[]) value;
+                out.writeVarInt(VALUE_ARRAY);
+                out.writeString(klass.getComponentType().getName());
+            } else {
+                items = ((Collection<?>) value).toArray();
+                out.writeVarInt(value instanceof Set ? VALUE_SET : VALUE_LIST);
+            }
+            out.writeVarInt(items.length);
+            for (int i = items.length - 1; i >= 0; i--) {
+                stack.push(new Task(items[i], null));
+            }
+        }
+    }
+
+    /**
+     * Write the value if it is a String, a boxed primitive or an enum.
+     *
+     * @return True if the value has been written.
+     */
+    private static boolean serializeLeaf(Object value, BinaryOutput out) throws IOException {
+        if (value instanceof String) {
+            out.writeVarInt(VALUE_STRING);
+            out.writeString((String) value);
+        } else if (value instanceof Integer) {
+            out.writeVarInt(VALUE_INT);
+            out.writeZigzag((Integer) value);
+        } else if (value instanceof Long) {
+            out.writeVarInt(VALUE_LONG);
+            out.writeZigzag((Long) value);
+        } else if (value instanceof Double) {
+            out.writeVarInt(VALUE_DOUBLE);
+            out.writeDouble((Double) value);
+        } else if (value instanceof Float) {
+            out.writeVarInt(VALUE_FLOAT);
+            out.writeFloat((Float) value);
+        } else if (value instanceof Short) {
+            out.writeVarInt(VALUE_SHORT);
+            out.writeZigzag((Short) value);
+        } else if (value instanceof Byte) {
+            out.writeVarInt(VALUE_BYTE);
+            out.writeByte((Byte) value);
+        } else if (value instanceof Character) {
+            out.writeVarInt(VALUE_CHAR);
+            out.writeVarInt((Character) value);
+        } else if (value instanceof Boolean) {
+            out.writeVarInt(VALUE_BOOLEAN);
+            out.writeBoolean((Boolean) value);
+        } else if (value instanceof Enum) {
+            Enum<?> constant = (Enum<?>) value;
+            out.writeVarInt(VALUE_ENUM);
+            out.writeString(constant.getDeclaringClass().getName());
+            out.writeString(constant.name());
+        } else {
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Write the type code of the components, the length and the components.
+     */
+    private static void serializePrimitiveArray(Object array, BinaryOutput out) throws IOException {
+        char typeCode = typeCodeOf(array.getClass().getComponentType());
+        out.writeByte(typeCode);
+        if (array instanceof int[]) {
+            int[] values = (int[]) array;
+            out.writeVarInt(values.length);
+            for (int value : values) {
+                out.writeZigzag(value);
+            }
+        } else if (array instanceof long[]) {
+            long[] values = (long[]) array;
+            out.writeVarInt(values.length);
+            for (long value : values) {
+                out.writeZigzag(value);
+            }
+        } else if (array instanceof double[]) {
+            double[] values = (double[]) array;
+            out.writeVarInt(values.length);
+            for (double value : values) {
+                out.writeDouble(value);
+            }
+        } else if (array instanceof float[]) {
+            float[] values = (float[]) array;
+            out.writeVarInt(values.length);
+            for (float value : values) {
+                out.writeFloat(value);
+            }
+        } else if (array instanceof short[]) {
+            short[] values = (short[]) array;
+            out.writeVarInt(values.length);
+            for (short value : values) {
+                out.writeZigzag(value);
+            }
+        } else if (array instanceof byte[]) {
+            byte[] values = (byte[]) array;
+            out.writeVarInt(values.length);
+            for (byte value : values) {
+                out.writeByte(value);
+            }
+        } else if (array instanceof char[]) {
+            char[] values = (char[]) array;
+            out.writeVarInt(values.length);
+            for (char value : values) {
+                out.writeVarInt(value);
+            }
+        } else {
+            boolean[] values = (boolean[]) array;
+            out.writeVarInt(values.length);
+            for (boolean value : values) {
+                out.writeBoolean(value);
+            }
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package xmllib;
+
+import java.util.Locale;
+
+/**
+ * Compression applied by XMLSerializer to the output file.
+ */
+public enum Compression {
+    /**
+     * Plain XML.
+     */
+    NONE(""),
+
+    /**
+     * A single gzip stream.
+     */
+    GZIP(".gz"),
+
+    /**
+     * A zlib (deflate) stream.
+     */
+    DEFLATE(".deflate"),
+
+    /**
+     * Chunks compressed in parallel, written as concatenated gzip members.
+     * The result is a valid gzip file, readable by any gzip decoder.
+     */
+    PARALLEL_GZIP(".gz");
+
+    private final String extension;
+
+    Compression(String extension) {
+        this.extension = extension;
+    }
+
+    /**
+     * @return The extension added to the output file (empty for NONE).
+     */
+    public String getExtension() {
+        return extension;
+    }
+
+    /**
+     * @param fileName A file name.
+     * @return The compression matching the extension of the file name (NONE
+     *         if it has no known extension).
+     */
+    public static Compression fromFileName(String fileName) {
+        // Extensions are matched ignoring case ("data.GZ" is gzip too)
+        String lowerCase = fileName.toLowerCase(Locale.ROOT);
+        if (lowerCase.endsWith(GZIP.extension)) {
+            return GZIP;
+        } else if (lowerCase.endsWith(DEFLATE.extension)) {
+            return DEFLATE;
+        }
+        return NONE;
+    }
+}
@@ -0,0 +1,160 @@
+package xmllib;
+
+/**
+ * Utility class used to escape strings before writing them into an XML
+ * document.
+ *
+ * The common case (a string without any special character) is handled by a
+ * single tight scan followed by a bulk copy, so that no additional object is
+ * ever allocated.
+ *
+ * Control characters which are not allowed in XML 1.0 (U+0000-U+001F except
+ * tab, line feed and carriage return) cannot even be written as character
+ * references, so they are replaced by U+FFFD. So are lone surrogates, which
+ * could not be encoded in UTF-8 (the encoder would write them as '?').
+ */
+public final class XMLEscaper {
+
+    /**
+     * Bitmask of the ASCII characters that must be escaped or replaced: bit i
+     * is set if the character with code i requires it.
+     * All of them are not greater than '>', so a single long is enough and
+     * letters are rejected by the first comparison.
+     */
+    private static final long ESCAPE_MASK = (1L << '<') | (1L << '>') | (1L << '&') | (1L << '"') | (1L << '\'')
+            | (0xFFFFFFFFL & ~((1L << '\t') | (1L << '\n') | (1L << '\r')));
+
+    /**
+     * Replacement of the control characters not allowed in XML, and of lone
+     * surrogates.
+     */
+    private static final String REPLACEMENT = "\uFFFD";
+
+    private XMLEscaper() {
+    }
+
+    /**
+     * @param c A character that needs to be escaped.
+     * @return The entity representing the character, or REPLACEMENT.
+     */
+    private static String entityOf(char c) {
+        switch (c) {
+            case '<':
+                return "&lt;";
+            case '>':
+                return "&gt;";
+            case '&':
+                return "&amp;";
+            case '"':
+                return "&quot;";
+            case '\'':
+                return "&apos;";
+            default:
+                return REPLACEMENT;
+        }
+    }
+
+    /**
+     * @param text The text to scan.
+     * @param from The index from which the scan should start.
+     * @return The index of the first character to be escaped (or replaced),
+     *         or the length of the text if there is none.
+     */
+    private static int nextEscape(String text, int from) {
+        int length = text.length();
+        for (int i = from; i < length; i++) {
+            char c = text.charAt(i);
+            if (c <= '>') {
+                if (((ESCAPE_MASK >>> c) & 1L) != 0) {
+                    return i;
+                }
+            } else if (Character.isSurrogate(c)) {
+                // A well-formed pair is copied as it is
+                if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(text.charAt(i + 1))) {
+                    i++;
+                } else {
+                    return i;
+                }
+            }
+        }
+        return length;
+    }
+
+    /**
+     * Append the escaped version of a text to a StringBuilder.
+     * Runs of characters that do not need escaping are copied in bulk.
+     *
+     * @param text   The text to escape (null is written as "null", like
+     *               StringBuilder.append does).
+     * @param output The StringBuilder to append to.
+     */
+    public static void escape(String text, StringBuilder output) {
+        if (text == null) {
+            output.append(text);
+            return;
+        }
+
+        int length = text.length();
+        int runStart = 0;
+        int i = nextEscape(text, 0);
+
+        // Fast path: nothing to escape
+        if (i == length) {
+            output.append(text);
+            return;
+        }
+
+        while (i < length) {
+            output.append(text, runStart, i);
+            output.append(entityOf(text.charAt(i)));
+            runStart = i + 1;
+            i = nextEscape(text, runStart);
+        }
+        output.append(text, runStart, length);
+    }
+
+    /**
+     * @param text The text to escape.
+     * @return The escaped text. If nothing has to be escaped, the same instance
+     *         is returned.
+     */
+    public static String escape(String text) {
+        if (text == null || nextEscape(text, 0) == text.length()) {
+            return text;
+        }
+
+        StringBuilder output = new StringBuilder(text.length() + 16);
+        escape(text, output);
+        return output.toString();
+    }
+
+    /**
+     * Convert a string into a valid XML tag name.
+     * Characters not allowed in a name are replaced by "_", and a leading "_"
+     * is added if the name would start with a digit, "-" or ".".
+     *
+     * It is meant to be called once per field during introspection, so that
+     * serialization does not pay for it.
+     *
+     * @param name The wanted tag name.
+     * @return A valid XML tag name.
+     */
+    public static String toTagName(String name) {
+        if (name == null || name.isEmpty()) {
+            return "_";
+        }
+
+        StringBuilder tagName = new StringBuilder(name.length() + 1);
+        char first = name.charAt(0);
+        if (!Character.isLetter(first) && first != '_' && first != ':') {
+            tagName.append('_');
+        }
+
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            boolean allowed = Character.isLetterOrDigit(c) || c == '_' || c == '-' || c == '.' || c == ':';
+            tagName.append(allowed ? c : '_');
+        }
+        return tagName.toString();
+    }
+}
@@ -1,14 +1,35 @@
 package xmllib;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
-import java.io.FileWriter;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.stream.IntStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
 
 public class XMLSerializer {
 
+    // Indentation is capped, so that very deep graphs still produce a document
+    // of linear size
+    private static final int MAX_INDENT = 32;
+
+    // Buffer size of compressing streams, and size of the chunks compressed in
+    // parallel
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int PARALLEL_CHUNK_SIZE = 1024 * 1024;
+
     /**
      * Represents the introspection of a field.
      */
@@ -42,10 +63,16 @@ public class XMLSerializer {
     private static class ClassStructure {
         private String name;
         private ArrayList<FieldStructure> fields;
+        private XMLableAccessor<Object> accessor;
 
         public ClassStructure(String name, ArrayList<FieldStructure> fields) {
+            this(name, fields, null);
+        }
+
+        public ClassStructure(String name, ArrayList<FieldStructure> fields, XMLableAccessor<Object> accessor) {
             this.name = name;
             this.fields = fields;
+            this.accessor = accessor;
         }
 
         public String getName() {
@@ -55,17 +82,93 @@ public class XMLSerializer {
         public ArrayList<FieldStructure> getFields() {
             return fields;
         }
+
+        /**
+         * @return The value of the i-th field, read through the generated
+         *         accessor if present, or through reflection otherwise.
+         */
+        public Object getFieldValue(Object object, int i) throws IllegalAccessException {
+            return accessor != null ? accessor.getFieldValue(object, i) : fields.get(i).getField().get(object);
+        }
     }
 
+    /**
+     * Represents a pending step of the serialization: either some text to be
+     * written as it is (e.g. a closing tag), or a value to be serialized as an
+     * element.
+     */
+    private static class Task {
+        private final String text;
+        private final Object value;
+        private final String tag;
+        private final String type;
+        private final int depth;
+
+        private Task(String text, Object value, String tag, String type, int depth) {
+            this.text = text;
+            this.value = value;
+            this.tag = tag;
+            this.type = type;
+            this.depth = depth;
+        }
+
+        public static Task text(String text) {
+            return new Task(text, null, null, null, 0);
+        }
+
+        public static Task value(Object value, String tag, String type, int depth) {
+            return new Task(null, value, tag, type, depth);
+        }
+    }
+
+    /**
+     * State shared by all the objects serialized in the same document.
+     * Object graphs are walked with an explicit stack, and every object that
+     * can contain references gets an id, so that objects seen again (shared or
+     * cyclic references) are written as a back-reference.
+     */
+    private static class Serialization {
+        private final StringBuilder xmlText;
+        private final HashMap<Class<?>, ClassStructure> introspectedClasses = new HashMap<>();
+        private final IdentityHashMap<Object, Integer> ids = new IdentityHashMap<>();
+        private final ArrayDeque<Task> stack = new ArrayDeque<>();
+
+        public Serialization(StringBuilder xmlText) {
+            this.xmlText = xmlText;
+        }
+    }
+
+    /**
+     * Serialize the objects to a file. If fileName ends with a known
+     * compression extension (see Compression), it is used as it is and the
+     * output is compressed accordingly. Otherwise, ".xml" is appended.
+     */
     public static void serialize(Object[] arr, String fileName) throws IOException, IllegalAccessException {
+        Compression compression = Compression.fromFileName(fileName);
+        if (compression == Compression.NONE) {
+            serialize(arr, fileName, compression);
+        } else {
+            writeOutput(serializeToString(arr), new File(fileName), compression);
+        }
+    }
+
+    /**
+     * Serialize the objects to the file "fileName.xml", followed by the
+     * extension of the compression.
+     */
+    public static void serialize(Object[] arr, String fileName, Compression compression)
+            throws IOException, IllegalAccessException {
+        writeOutput(serializeToString(arr), new File(fileName + ".xml" + compression.getExtension()), compression);
+    }
+
+    private static String serializeToString(Object[] arr) throws IllegalAccessException {
         // Start serialization
         StringBuilder xmlText = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<Objects>\n");
 
         // Serialize objects
-        HashMap<String, ClassStructure> introspectedClasses = new HashMap<>();
+        Serialization serialization = new Serialization(xmlText);
         for (Object object : arr) {
             Class<?> klass = object.getClass();
-            String name = klass.getSimpleName();
 
             // Classes without XMLable annotation are not parsable
             if (!klass.isAnnotationPresent(XMLable.class)) {
@@ -73,48 +176,108 @@ public class XMLSerializer {
                 continue;
             }
 
-            // Get class' introspection and compute if not present
-            ClassStructure introspectedClass = introspectedClasses.computeIfAbsent(name, k -> introspectClass(klass));
-
-            // Serialize and save for future re-usage
-            String objectXML = serializeObject(object, introspectedClass);
-            xmlText.append(objectXML);
+            // Serialize the object graph directly into the document
+            String name = getClassStructure(klass, serialization).getName();
+            serializeGraph(Task.value(object, name, null, 1), serialization);
         }
 
         xmlText.append("</Objects>\n");
+        return xmlText.toString();
+    }
+
+    /**
+     * Write the document to the output file (encoded in UTF-8, as declared in
+     * the header), compressing it if requested.
+     */
+    private static void writeOutput(String xmlText, File outputFile, Compression compression) throws IOException {
+        byte[] bytes = xmlText.getBytes(StandardCharsets.UTF_8);
 
-        // Create output file (if not present)
-        File outputFile = new File(fileName + ".xml");
-        outputFile.createNewFile();
+        try (OutputStream fileStream = new FileOutputStream(outputFile)) {
+            switch (compression) {
+                case GZIP:
+                    try (OutputStream out = new GZIPOutputStream(fileStream, BUFFER_SIZE)) {
+                        out.write(bytes);
+                    }
+                    break;
+                case DEFLATE:
+                    // A Deflater passed explicitly is not ended by the stream
+                    Deflater deflater = new Deflater();
+                    try (OutputStream out = new DeflaterOutputStream(fileStream, deflater, BUFFER_SIZE)) {
+                        out.write(bytes);
+                    } finally {
+                        deflater.end();
+                    }
+                    break;
+                case PARALLEL_GZIP:
+                    // Compress each chunk as an independent gzip member, keeping their order
+                    int chunks = (bytes.length + PARALLEL_CHUNK_SIZE - 1) / PARALLEL_CHUNK_SIZE;
+                    byte[][] members = IntStream.range(0, Math.max(chunks, 1)).parallel()
+                            .mapToObj(i -> gzipChunk(bytes, i * PARALLEL_CHUNK_SIZE,
+                                    Math.min(PARALLEL_CHUNK_SIZE, bytes.length - i * PARALLEL_CHUNK_SIZE)))
+                            .toArray(byte[][]::new);
+                    for (byte[] member : members) {
+                        fileStream.write(member);
+                    }
+                    break;
+                default:
+                    fileStream.write(bytes);
+                    break;
+            }
+        }
+    }
+
+    /**
+     * @return A gzip member containing bytes[offset, offset + length).
+     */
+    private static byte[] gzipChunk(byte[] bytes, int offset, int length) {
+        ByteArrayOutputStream member = new ByteArrayOutputStream(length / 4 + 64);
+        try (OutputStream out = new GZIPOutputStream(member, BUFFER_SIZE)) {
+            out.write(bytes, offset, length);
+        } catch (IOException e) {
+            // Cannot happen when writing to memory
+            throw new UncheckedIOException(e);
+        }
+        return member.toByteArray();
+    }
 
-        // Write to output file
-        FileWriter outputFileWriter = new FileWriter(outputFile);
-        outputFileWriter.write(xmlText.toString());
-        outputFileWriter.close();
+    /**
+     * @return class' introspection, computed if not present.
+     */
+    private static ClassStructure getClassStructure(Class<?> klass, Serialization serialization) {
+        return serialization.introspectedClasses.computeIfAbsent(klass, k -> introspectClass(klass));
     }
 
     private static ClassStructure introspectClass(Class<?> objectClass) {
+        // Use the accessor generated at compile time, if present
+        XMLableAccessor<Object> accessor = loadAccessor(objectClass);
+        if (accessor != null) {
+            ArrayList<FieldStructure> fields = new ArrayList<>();
+            String[] fieldNames = accessor.getFieldNames();
+            String[] fieldTypes = accessor.getFieldTypes();
+            for (int i = 0; i < fieldNames.length; i++) {
+                fields.add(new FieldStructure(fieldNames[i], fieldTypes[i], null));
+            }
+            return new ClassStructure(accessor.getName(), fields, accessor);
+        }
+
         // Instrospect class name
-        String objectClassName = objectClass.getSimpleName();
-        
+        String objectClassName = XMLEscaper.toTagName(objectClass.getSimpleName());
+
         // Introspect fields
         ArrayList<FieldStructure> fields = new ArrayList<>();
         for (Field field : objectClass.getDeclaredFields()) {
-            // Introspect field type and annotation
-            var fieldType = field.getType();
+            // Skip if XMLField annotation is not present
             XMLfield annotation = field.getAnnotation(XMLfield.class);
-
-            // Skip if not primitive or String, or if XMLField annotation is not present
-            if ((!fieldType.isPrimitive() && !fieldType.equals(String.class)) || annotation == null) {
+            if (annotation == null) {
                 continue;
             }
 
             // Get access to private fields (and later restore it)
             field.setAccessible(true);
 
-            // Get information from annotation
-            String fieldName = annotation.name().equals("") ? field.getName() : annotation.name();
-            String annotationType = annotation.type();
+            // Get information from annotation (made safe for XML once and for all)
+            String fieldName = XMLEscaper.toTagName(annotation.name().equals("") ? field.getName() : annotation.name());
+            String annotationType = XMLEscaper.escape(annotation.type());
 
             // Save field
             fields.add(new FieldStructure(fieldName, annotationType, field));
@@ -123,33 +286,212 @@ public class XMLSerializer {
         return new ClassStructure(objectClassName, fields);
     }
 
-    private static String serializeObject(Object object, ClassStructure introspectedClass)
-            throws IllegalAccessException {
-        // Serialize class name
-        String objectClassName = introspectedClass.getName();
-        StringBuilder xmlText = new StringBuilder("\t<" + objectClassName + ">\n");
-
-        // Serialize fields
-        for (FieldStructure toUnpack : introspectedClass.getFields()) {
-            // Unpack
-            String fieldName = toUnpack.getName();
-            String fieldType = toUnpack.getType();
-            Field field = toUnpack.getField();
-
-            // Serialize field
-            // NOTE: The field could contain "<" or ">" character,
-            // potentially corrupting the XML.
-            // Unfortunately, there is no easily accessible function
-            // to escape XML strings in Java 11.
-            // We do not overcomplicate the solution and we limit ourselves to simply
-            // acknowledging the problem.
-            xmlText.append("\t\t<" + fieldName + " type=\"" + fieldType + "\">");
-            xmlText.append(field.get(object));
-            xmlText.append("</" + fieldName + ">\n");
-        }
-
-        // Close serialization
-        xmlText.append("\t</" + objectClassName + ">\n");
-        return xmlText.toString();
+    /**
+     * @return The accessor generated by XMLableProcessor for the class, or null
+     *         if it has not been generated.
+     */
+    @SuppressWarnings("unchecked")
+    private static XMLableAccessor<Object> loadAccessor(Class<?> objectClass) {
+        try {
+            Class<?> accessorClass = Class.forName(objectClass.getName() + XMLableAccessor.SUFFIX, true,
+                    objectClass.getClassLoader());
+            if (!XMLableAccessor.class.isAssignableFrom(accessorClass)) {
+                return null;
+            }
+            return (XMLableAccessor<Object>) accessorClass.getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Serialize a value and everything reachable from it, without recursion.
+     *
+     * @param root          The task serializing the value.
+     * @param serialization The state of the current document.
+     */
+    private static void serializeGraph(Task root, Serialization serialization) throws IllegalAccessException {
+        ArrayDeque<Task> stack = serialization.stack;
+        stack.push(root);
+
+        while (!stack.isEmpty()) {
+            Task task = stack.pop();
+            if (task.text != null) {
+                serialization.xmlText.append(task.text);
+            } else {
+                serializeValue(task, serialization);
+            }
+        }
+    }
+
+    /**
+     * Serialize a single value. Leaf values are written immediately, while the
+     * children of composite values are pushed on the stack (in reverse order,
+     * so that they are popped in the right one).
+     *
+     * @param task          The task to be executed.
+     * @param serialization The state of the current document.
+     */
+    private static void serializeValue(Task task, Serialization serialization) throws IllegalAccessException {
+        StringBuilder xmlText = serialization.xmlText;
+        Object value = task.value;
+        int depth = task.depth;
+
+        indent(xmlText, depth);
+        xmlText.append('<').append(task.tag);
+        if (task.type != null) {
+            xmlText.append(" type=\"").append(task.type).append('"');
+        }
+
+        // Null values are written as in toString
+        if (value == null) {
+            xmlText.append(">null</").append(task.tag).append(">\n");
+            return;
+        }
+
+        // Leaf values
+        Class<?> klass = value.getClass();
+        if (isLeaf(klass)) {
+            xmlText.append('>');
+            if (value instanceof String || value instanceof Character) {
+                XMLEscaper.escape(value.toString(), xmlText);
+            } else if (value instanceof Enum) {
+                xmlText.append(((Enum<?>) value).name());
+            } else {
+                xmlText.append(value);
+            }
+            xmlText.append("</").append(task.tag).append(">\n");
+            return;
+        }
+
+        // Primitive arrays are written in bulk, as they cannot contain references
+        if (klass.isArray() && klass.getComponentType().isPrimitive()) {
+            xmlText.append('>');
+            appendPrimitiveArray(value, xmlText);
+            xmlText.append("</").append(task.tag).append(">\n");
+            return;
+        }
+
+        // Objects already serialized are written as a back-reference
+        Integer id = serialization.ids.get(value);
+        if (id != null) {
+            xmlText.append(" ref=\"").append(id).append("\" />\n");
+            return;
+        }
+
+        boolean isXMLable = klass.isAnnotationPresent(XMLable.class);
+        if (!isXMLable && !klass.isArray() && !(value instanceof Collection) && !(value instanceof Map)) {
+            xmlText.append(" notXMLable=\"true\" />\n");
+            return;
+        }
+
+        // Open the element and schedule its closing
+        id = serialization.ids.size() + 1;
+        serialization.ids.put(value, id);
+        xmlText.append(" id=\"").append(id).append("\">\n");
+
+        ArrayDeque<Task> stack = serialization.stack;
+        StringBuilder closingTag = new StringBuilder();
+        indent(closingTag, depth);
+        stack.push(Task.text(closingTag.append("</").append(task.tag).append(">\n").toString()));
+
+        // Schedule children
+        if (isXMLable) {
+            ClassStructure introspectedClass = getClassStructure(klass, serialization);
+            ArrayList<FieldStructure> fields = introspectedClass.getFields();
+            for (int i = fields.size() - 1; i >= 0; i--) {
+                FieldStructure field = fields.get(i);
+                Object fieldValue = introspectedClass.getFieldValue(value, i);
+                stack.push(Task.value(fieldValue, field.getName(), field.getType(), depth + 1));
+            }
+        } else if (value instanceof Map) {
+            Object[] entries = ((Map<?, ?>) value).entrySet().toArray();
+            String entryIndent = indent(new StringBuilder(), depth + 1).toString();
+            for (int i = entries.length - 1; i >= 0; i--) {
+                Map.Entry<?, ?> entry = (Map.Entry<?, ?>) entries[i];
+                stack.push(Task.text(entryIndent + "</entry>\n"));
+                stack.push(Task.value(entry.getValue(), "value", typeOf(entry.getValue()), depth + 2));
+                stack.push(Task.value(entry.getKey(), "key", typeOf(entry.getKey()), depth + 2));
+                stack.push(Task.text(entryIndent + "<entry>\n"));
+            }
+        } else {
+            Object[] items = klass.isArray() ? (Object[]) value : ((Collection<?>) value).toArray();
+            for (int i = items.length - 1; i >= 0; i--) {
+                stack.push(Task.value(items[i], "item", typeOf(items[i]), depth + 1));
+            }
+        }
+    }
+
+    /**
+     * @return True if the values of the class are written as simple text.
+     */
+    private static boolean isLeaf(Class<?> klass) {
+        return klass == String.class || klass == Integer.class || klass == Long.class || klass == Double.class
+                || klass == Float.class || klass == Short.class || klass == Byte.class || klass == Character.class
+                || klass == Boolean.class || klass.isEnum();
+    }
+
+    /**
+     * @return The type attribute of a value whose type is only known at runtime.
+     */
+    private static String typeOf(Object value) {
+        return value == null ? null : XMLEscaper.escape(value.getClass().getSimpleName());
+    }
+
+    /**
+     * Write the elements of a primitive array separated by a space (char
+     * arrays are written as an escaped string instead).
+     */
+    private static void appendPrimitiveArray(Object array, StringBuilder xmlText) {
+        if (array instanceof char[]) {
+            XMLEscaper.escape(new String((char[]) array), xmlText);
+        } else if (array instanceof int[]) {
+            int[] values = (int[]) array;
+            for (int i = 0; i < values.length; i++) {
+                xmlText.append(i == 0 ? "" : " ").append(values[i]);
+            }
+        } else if (array instanceof long[]) {
+            long[] values = (long[]) array;
+            for (int i = 0; i < values.length; i++) {
+                xmlText.append(i == 0 ? "" : " ").append(values[i]);
+            }
+        } else if (array instanceof double[]) {
+            double[] values = (double[]) array;
+            for (int i = 0; i < values.length; i++) {
+                xmlText.append(i == 0 ? "" : " ").append(values[i]);
+            }
+        } else if (array instanceof float[]) {
+            float[] values = (float[]) array;
+            for (int i = 0; i < values.length; i++) {
+                xmlText.append(i == 0 ? "" : " ").append(values[i]);
+            }
+        } else if (array instanceof short[]) {
+            short[] values = (short[]) array;
+            for (int i = 0; i < values.length; i++) {
+                xmlText.append(i == 0 ? "" : " ").append(values[i]);
+            }
+        } else if (array instanceof byte[]) {
+            byte[] values = (byte[]) array;
+            for (int i = 0; i < values.length; i++) {
+                xmlText.append(i == 0 ? "" : " ").append(values[i]);
+            }
+        } else {
+            boolean[] values = (boolean[]) array;
+            for (int i = 0; i < values.length; i++) {
+                xmlText.append(i == 0 ? "" : " ").append(values[i]);
+            }
+        }
+    }
+
+    /**
+     * Append depth tabs (at most MAX_INDENT) to a StringBuilder.
+     *
+     * @return The same StringBuilder.
+     */
+    private static StringBuilder indent(StringBuilder xmlText, int depth) {
+        for (int i = 0; i < Math.min(depth, MAX_INDENT); i++) {
+            xmlText.append('\t');
+        }
+        return xmlText;
     }
-}
\ No newline at end of file
+}
@@ -47,7 +47,7 @@ public class XMLSerializerAlwaysIntrospect {
     private static String serializeObject(Object object) throws IllegalAccessException {
         // Start serialization
         Class<?> klass = object.getClass();
-        String objectClassName = klass.getSimpleName();
+        String objectClassName = XMLEscaper.toTagName(klass.getSimpleName());
         StringBuilder xmlText = new StringBuilder("\t<" + objectClassName + ">\n");
 
         // Serialize fields
@@ -66,10 +66,15 @@ public class XMLSerializerAlwaysIntrospect {
                 continue;
             }
 
-            // Serialize field
-            String fieldName = annotation.name().equals("") ? field.getName() : annotation.name();
-            xmlText.append("\t\t<" + fieldName + " type=\"" + annotation.type() + "\">");
-            xmlText.append(field.get(object));
+            // Serialize field (escaping strings, which could contain "<", ">" or "&")
+            String fieldName = XMLEscaper.toTagName(annotation.name().equals("") ? field.getName() : annotation.name());
+            xmlText.append("\t\t<" + fieldName + " type=\"" + XMLEscaper.escape(annotation.type()) + "\">");
+            if (fieldType.isPrimitive()) {
+                // Only a char can hold a special character
+                XMLEscaper.escape(String.valueOf(field.get(object)), xmlText);
+            } else {
+                XMLEscaper.escape((String) field.get(object), xmlText);
+            }
             xmlText.append("</" + fieldName + ">\n");
         }
 
@@ -0,0 +1,41 @@
+package xmllib;
+
+/**
+ * Gives access to the XMLfield fields of an XMLable class without
+ * reflection.
+ *
+ * Implementations are generated at compile time by XMLableProcessor, in the
+ * same package of the class and named after it (e.g. StudentXMLAccessor for
+ * Student). XMLSerializer uses them when they are present, and falls back to
+ * reflection otherwise.
+ *
+ * @param <T> The XMLable class.
+ */
+public interface XMLableAccessor<T> {
+    /**
+     * Suffix appended to the name of the class to get the name of its accessor.
+     */
+    String SUFFIX = "XMLAccessor";
+
+    /**
+     * @return The tag name of the class.
+     */
+    String getName();
+
+    /**
+     * @return The tag names of the fields, in declaration order.
+     */
+    String[] getFieldNames();
+
+    /**
+     * @return The (escaped) types of the fields, in declaration order.
+     */
+    String[] getFieldTypes();
+
+    /**
+     * @param object The object to read.
+     * @param index  The index of the field.
+     * @return The value of the field.
+     */
+    Object getFieldValue(T object, int index);
+}
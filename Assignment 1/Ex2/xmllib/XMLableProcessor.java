@@ -0,0 +1,212 @@
+package xmllib;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.tools.Diagnostic;
+
+/**
+ * Annotation processor generating an XMLableAccessor for each XMLable class,
+ * so that XMLSerializer does not need to introspect it at runtime.
+ *
+ * Usage (xmllib must be compiled first):
+ * javac -cp classes -processor xmllib.XMLableProcessor -d classes test/*.java
+ *
+ * Private fields are read through a VarHandle obtained once, when the accessor
+ * is initialized, with a private lookup into the class: like the reflective
+ * serializer, the accessor reads the raw value of the field, whatever getters
+ * the class declares. Private classes are introspected at runtime as before.
+ */
+@SupportedAnnotationTypes({ "xmllib.XMLable", "xmllib.XMLfield" })
+public class XMLableProcessor extends AbstractProcessor {
+
+    /**
+     * Represents a field of the class to be generated.
+     */
+    private static class GeneratedField {
+        private final String tagName;
+        private final String type;
+        private final String accessExpression;
+        // Declaration of the VarHandle of a private field, null otherwise
+        private final String handleDeclaration;
+
+        public GeneratedField(String tagName, String type, String accessExpression, String handleDeclaration) {
+            this.tagName = tagName;
+            this.type = type;
+            this.accessExpression = accessExpression;
+            this.handleDeclaration = handleDeclaration;
+        }
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (Element element : roundEnv.getElementsAnnotatedWith(XMLable.class)) {
+            if (element.getKind() != ElementKind.CLASS) {
+                continue;
+            }
+
+            TypeElement typeElement = (TypeElement) element;
+            List<GeneratedField> fields = introspectClass(typeElement);
+            if (fields != null) {
+                generateAccessor(typeElement, fields);
+            }
+        }
+        // Both annotations are only meant for this processor
+        return true;
+    }
+
+    /**
+     * @return The fields to be serialized, or null if the class cannot be
+     *         accessed without reflection.
+     */
+    private List<GeneratedField> introspectClass(TypeElement typeElement) {
+        if (typeElement.getModifiers().contains(Modifier.PRIVATE)) {
+            note(typeElement, "private class, it will be introspected at runtime.");
+            return null;
+        }
+
+        List<GeneratedField> fields = new ArrayList<>();
+        for (Element member : typeElement.getEnclosedElements()) {
+            XMLfield annotation = member.getAnnotation(XMLfield.class);
+            if (member.getKind() != ElementKind.FIELD || annotation == null) {
+                continue;
+            }
+
+            VariableElement field = (VariableElement) member;
+            String fieldName = field.getSimpleName().toString();
+            String accessExpression = "object." + fieldName;
+            String handleDeclaration = null;
+            if (field.getModifiers().contains(Modifier.PRIVATE)) {
+                String handleName = "FIELD_" + fields.size();
+                String fieldType = processingEnv.getTypeUtils().erasure(field.asType()).toString();
+                handleDeclaration = "    private static final java.lang.invoke.VarHandle " + handleName
+                        + " = findField(" + typeElement.getQualifiedName() + ".class, \"" + fieldName + "\", "
+                        + fieldType + ".class);\n";
+                accessExpression = handleName + ".get(object)";
+            }
+
+            String tagName = XMLEscaper.toTagName(annotation.name().equals("") ? fieldName : annotation.name());
+            fields.add(new GeneratedField(tagName, XMLEscaper.escape(annotation.type()), accessExpression,
+                    handleDeclaration));
+        }
+        return fields;
+    }
+
+    private void generateAccessor(TypeElement typeElement, List<GeneratedField> fields) {
+        PackageElement packageElement = processingEnv.getElementUtils().getPackageOf(typeElement);
+        String packageName = packageElement.isUnnamed() ? "" : packageElement.getQualifiedName().toString();
+        String binaryName = processingEnv.getElementUtils().getBinaryName(typeElement).toString();
+        String accessorName = binaryName.substring(packageName.isEmpty() ? 0 : packageName.length() + 1)
+                + XMLableAccessor.SUFFIX;
+        String className = typeElement.getQualifiedName().toString();
+        String tagName = XMLEscaper.toTagName(typeElement.getSimpleName().toString());
+
+        StringBuilder source = new StringBuilder();
+        if (!packageName.isEmpty()) {
+            source.append("package ").append(packageName).append(";\n\n");
+        }
+        source.append("/**\n * Generated by xmllib.XMLableProcessor, do not edit.\n */\n");
+        source.append("public final class ").append(accessorName).append(" implements xmllib.XMLableAccessor<")
+                .append(className).append("> {\n");
+        appendStringArray(source, "FIELD_NAMES", fields, true);
+        appendStringArray(source, "FIELD_TYPES", fields, false);
+        appendFieldHandles(source, fields);
+
+        source.append("\n    @Override\n    public String getName() {\n        return \"").append(tagName)
+                .append("\";\n    }\n");
+        source.append("\n    @Override\n    public String[] getFieldNames() {\n        return FIELD_NAMES.clone();\n    }\n");
+        source.append("\n    @Override\n    public String[] getFieldTypes() {\n        return FIELD_TYPES.clone();\n    }\n");
+
+        source.append("\n    @Override\n    public Object getFieldValue(").append(className)
+                .append(" object, int index) {\n        switch (index) {\n");
+        for (int i = 0; i < fields.size(); i++) {
+            source.append("            case ").append(i).append(":\n                return ")
+                    .append(fields.get(i).accessExpression).append(";\n");
+        }
+        source.append("            default:\n                throw new IndexOutOfBoundsException(\"Field index: \" + index);\n");
+        source.append("        }\n    }\n}\n");
+
+        String qualifiedName = packageName.isEmpty() ? accessorName : packageName + "." + accessorName;
+        try (Writer writer = processingEnv.getFiler().createSourceFile(qualifiedName, typeElement).openWriter()) {
+            writer.write(source.toString());
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                    "Cannot generate " + qualifiedName + ": " + e, typeElement);
+        }
+    }
+
+    /**
+     * Append the VarHandles of the private fields (if any), with the method
+     * looking them up.
+     */
+    private static void appendFieldHandles(StringBuilder source, List<GeneratedField> fields) {
+        boolean hasHandles = false;
+        for (GeneratedField field : fields) {
+            if (field.handleDeclaration != null) {
+                source.append(field.handleDeclaration);
+                hasHandles = true;
+            }
+        }
+        if (!hasHandles) {
+            return;
+        }
+
+        source.append("\n    private static java.lang.invoke.VarHandle findField(Class<?> klass, String name, Class<?> type) {\n");
+        source.append("        try {\n");
+        source.append("            return java.lang.invoke.MethodHandles.privateLookupIn(klass, java.lang.invoke.MethodHandles.lookup())\n");
+        source.append("                    .findVarHandle(klass, name, type);\n");
+        source.append("        } catch (ReflectiveOperationException e) {\n");
+        source.append("            throw new ExceptionInInitializerError(e);\n");
+        source.append("        }\n    }\n");
+    }
+
+    private static void appendStringArray(StringBuilder source, String name, List<GeneratedField> fields,
+            boolean tagNames) {
+        source.append("    private static final String[] ").append(name).append(" = {");
+        for (int i = 0; i < fields.size(); i++) {
+            String value = tagNames ? fields.get(i).tagName : fields.get(i).type;
+            source.append(i == 0 ? " " : ", ").append('"').append(escapeJava(value)).append('"');
+        }
+        source.append(" };\n");
+    }
+
+    /**
+     * @return The string escaped to be used inside a Java string literal.
+     */
+    private static String escapeJava(String string) {
+        StringBuilder escaped = new StringBuilder(string.length());
+        for (char c : string.toCharArray()) {
+            if (c == '"' || c == '\\') {
+                escaped.append('\\').append(c);
+            } else if (c < 0x20) {
+                escaped.append(String.format("\\%03o", (int) c));
+            } else if (c > 0x7E) {
+                escaped.append(String.format("\\u%04x", (int) c));
+            } else {
+                escaped.append(c);
+            }
+        }
+        return escaped.toString();
+    }
+
+    private void note(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE, "XMLable: " + message, element);
+    }
+}
@@ -22,7 +22,7 @@ public class Job extends AJob<String, String> {
      * @param word Word to be processed.
      * @return CIAO key of the word.
      */
-    private String ciao(String word) {
+    public static String ciao(String word) {
         return new String(word.toLowerCase().chars().sorted().toArray(), 0, word.length());
     }
 
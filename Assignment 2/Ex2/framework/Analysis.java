@@ -0,0 +1,58 @@
+package framework;
+
+import java.util.Map;
+import java.util.stream.Collector;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * A job which can be plugged into a JobDriver, sharing the tokenization of the
+ * documents with the other jobs.
+ * 
+ * @param <K> Type of the keys.
+ * @param <V> Type of the values emitted for each key.
+ * @param <R> Type of the values collected for each key.
+ */
+public abstract class Analysis<K, V, R> {
+
+    /**
+     * Maps a tokenized document to key/value pairs.
+     * 
+     * @param document The document.
+     * @return A stream of key/value pairs.
+     */
+    public abstract Stream<Pair<K, V>> map(Document document);
+
+    /**
+     * @return The collector reducing all the values of a key (e.g.
+     *         Collectors.toList() or Collectors.counting()).
+     */
+    protected abstract Collector<V, ?, R> reducer();
+
+    /**
+     * Outputs the collected result.
+     * 
+     * @param out A pair for each key, with its reduced values.
+     */
+    protected abstract void output(Stream<Pair<K, R>> out);
+
+    /**
+     * @return The collector of the documents, grouping the pairs of all of them
+     *         by key into a Map&lt;K, R&gt; (types are erased, so that the
+     *         collectors of different analyses can be combined).
+     */
+    @SuppressWarnings("unchecked")
+    final Collector<Document, Object, Object> collector() {
+        Collector<Document, ?, Map<K, R>> collector = Collectors.flatMapping(this::map,
+                Collectors.groupingBy(Pair::getKey, Collectors.mapping(Pair::getValue, reducer())));
+        return (Collector<Document, Object, Object>) (Collector<Document, ?, ?>) collector;
+    }
+
+    /**
+     * Outputs a result produced by collector().
+     */
+    @SuppressWarnings("unchecked")
+    final void publish(Object result) {
+        output(((Map<K, R>) result).entrySet().stream().map(entry -> new Pair<>(entry.getKey(), entry.getValue())));
+    }
+}
@@ -0,0 +1,62 @@
+package framework;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class Document {
+    String name;
+    List<Token> tokens;
+
+    public Document(String name, List<Token> tokens) {
+        this.name = name;
+        this.tokens = Collections.unmodifiableList(tokens);
+    }
+
+    /**
+     * Read a file and split it into tokens separated by whitespace, once, so
+     * that the tokens can be shared by all the analyses.
+     * 
+     * @param path Path of the file.
+     * @return The tokenized document, named after the file.
+     * @throws IOException If the file cannot be read.
+     */
+    public static Document read(Path path) throws IOException {
+        String content = Files.readString(path);
+        List<Token> tokens = new ArrayList<>();
+
+        int start = -1;
+        for (int i = 0; i <= content.length(); i++) {
+            boolean separator = i == content.length() || isWhitespace(content.charAt(i));
+            if (separator && start >= 0) {
+                tokens.add(new Token(content.substring(start, i), start));
+                start = -1;
+            } else if (!separator && start < 0) {
+                start = i;
+            }
+        }
+        return new Document(path.getFileName().toString(), tokens);
+    }
+
+    /**
+     * @return True for the characters matched by the regex \s.
+     */
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public List<Token> getTokens() {
+        return tokens;
+    }
+
+    public String toString() {
+        return name + " (" + tokens.size() + " tokens)";
+    }
+}
@@ -0,0 +1,95 @@
+package framework;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collector;
+import java.util.stream.Stream;
+
+/**
+ * Runs several analyses on the same documents with a single pass: each file
+ * is read and tokenized once, and the tokens are fed to all the analyses by a
+ * multi-output collector.
+ */
+public class JobDriver {
+    private final List<Analysis<?, ?, ?>> analyses = new ArrayList<>();
+
+    /**
+     * Plugs an analysis into the driver.
+     * 
+     * @param analysis The analysis.
+     * @return This driver, to chain the calls.
+     */
+    public JobDriver add(Analysis<?, ?, ?> analysis) {
+        this.analyses.add(analysis);
+        return this;
+    }
+
+    /**
+     * Entry point of the driver: read and tokenize the files (in parallel),
+     * collect the output of all the analyses, then output each of them.
+     * 
+     * @param files Paths of the files.
+     * @throws IOException If a file cannot be read.
+     */
+    public final void executePhases(Stream<Path> files) throws IOException {
+        Object[] results;
+        try {
+            results = files.parallel().map(JobDriver::read).collect(multiCollector());
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        for (int i = 0; i < this.analyses.size(); i++) {
+            this.analyses.get(i).publish(results[i]);
+        }
+    }
+
+    private static Document read(Path path) {
+        try {
+            return Document.read(path);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @return A collector feeding each document to the collectors of all the
+     *         analyses, and returning their results in the same order.
+     */
+    private Collector<Document, ?, Object[]> multiCollector() {
+        List<Collector<Document, Object, Object>> collectors = new ArrayList<>();
+        for (Analysis<?, ?, ?> analysis : this.analyses) {
+            collectors.add(analysis.collector());
+        }
+
+        return Collector.of(
+                () -> {
+                    Object[] containers = new Object[collectors.size()];
+                    for (int i = 0; i < collectors.size(); i++) {
+                        containers[i] = collectors.get(i).supplier().get();
+                    }
+                    return containers;
+                },
+                (containers, document) -> {
+                    for (int i = 0; i < collectors.size(); i++) {
+                        collectors.get(i).accumulator().accept(containers[i], document);
+                    }
+                },
+                (left, right) -> {
+                    for (int i = 0; i < collectors.size(); i++) {
+                        left[i] = collectors.get(i).combiner().apply(left[i], right[i]);
+                    }
+                    return left;
+                },
+                containers -> {
+                    Object[] results = new Object[collectors.size()];
+                    for (int i = 0; i < collectors.size(); i++) {
+                        results[i] = collectors.get(i).finisher().apply(containers[i]);
+                    }
+                    return results;
+                });
+    }
+}
@@ -0,0 +1,51 @@
+package framework;
+
+public class Token {
+    String text;
+    String word;
+    long offset;
+
+    /**
+     * @param text   Text of the token, as found in the document.
+     * @param offset Offset (in characters) of the token in the document.
+     */
+    public Token(String text, long offset) {
+        this.text = text;
+        this.offset = offset;
+        this.word = isAlphabetic(text) ? text.toLowerCase() : null;
+    }
+
+    private static boolean isAlphabetic(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if ((c < 'A' || c > 'Z') && (c < 'a' || c > 'z')) {
+                return false;
+            }
+        }
+        return !text.isEmpty();
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    /**
+     * @return The lowercase text of the token if it contains alphabetical
+     *         characters only, null otherwise.
+     */
+    public String getWord() {
+        return word;
+    }
+
+    public boolean isWord() {
+        return word != null;
+    }
+
+    public long getOffset() {
+        return offset;
+    }
+
+    public String toString() {
+        return text + "@" + offset;
+    }
+}
@@ -0,0 +1,45 @@
+package wordstatistics;
+
+import java.util.Comparator;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.stream.Collector;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import countinganagrams.Job;
+import framework.Document;
+import framework.Pair;
+
+/**
+ * Groups the distinct words with at least 4 characters by CIAO key, writing
+ * "<ciao_key> - <word>, <word>..." lines for the keys with at least two words.
+ */
+public class AnagramClasses extends FileAnalysis<String, String, SortedSet<String>> {
+
+    public AnagramClasses() {
+        super("anagram_classes.txt");
+    }
+
+    @Override
+    public Stream<Pair<String, String>> map(Document document) {
+        return document.getTokens().stream()
+                .filter(token -> token.isWord() && token.getWord().length() >= 4)
+                .map(token -> new Pair<>(Job.ciao(token.getWord()), token.getWord()));
+    }
+
+    @Override
+    protected Collector<String, ?, SortedSet<String>> reducer() {
+        return Collectors.toCollection(TreeSet::new);
+    }
+
+    @Override
+    protected Stream<Pair<String, SortedSet<String>>> sort(Stream<Pair<String, SortedSet<String>>> out) {
+        return out.filter(pair -> pair.getValue().size() >= 2).sorted(Comparator.comparing(Pair::getKey));
+    }
+
+    @Override
+    protected String format(Pair<String, SortedSet<String>> pair) {
+        return pair.getKey() + " - " + String.join(", ", pair.getValue());
+    }
+}
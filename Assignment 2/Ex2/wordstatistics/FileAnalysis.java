@@ -0,0 +1,51 @@
+package wordstatistics;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.stream.Stream;
+
+import framework.Analysis;
+import framework.Pair;
+
+/**
+ * An analysis writing its output to a file, one key per line.
+ */
+abstract class FileAnalysis<K, V, R> extends Analysis<K, V, R> {
+    private final String fileName;
+
+    FileAnalysis(String fileName) {
+        this.fileName = fileName;
+    }
+
+    /**
+     * @param pair A key with its collected values.
+     * @return The line of the key.
+     */
+    protected abstract String format(Pair<K, R> pair);
+
+    /**
+     * @param out Output of collect.
+     * @return The pairs in the order they are written (unchanged by default).
+     */
+    protected Stream<Pair<K, R>> sort(Stream<Pair<K, R>> out) {
+        return out;
+    }
+
+    @Override
+    protected void output(Stream<Pair<K, R>> out) {
+        // Open the file using a BufferedWriter for efficiency
+        File outFile = new File(this.fileName);
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(outFile))) {
+            for (Pair<K, R> pair : (Iterable<Pair<K, R>>) sort(out)::iterator) {
+                writer.write(format(pair));
+                writer.newLine();
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        } finally {
+            System.out.println("Output written to " + outFile.getAbsolutePath());
+        }
+    }
+}
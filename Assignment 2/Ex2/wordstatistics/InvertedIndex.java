@@ -0,0 +1,49 @@
+package wordstatistics;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collector;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import framework.Document;
+import framework.Pair;
+import framework.Token;
+
+/**
+ * Indexes the occurrences of each word, writing "<word> - <file>:<offset>, ..."
+ * lines in alphabetical order, where offsets are in characters.
+ */
+public class InvertedIndex extends FileAnalysis<String, Pair<String, Long>, List<Pair<String, Long>>> {
+
+    public InvertedIndex() {
+        super("inverted_index.txt");
+    }
+
+    @Override
+    public Stream<Pair<String, Pair<String, Long>>> map(Document document) {
+        return document.getTokens().stream()
+                .filter(Token::isWord)
+                .map(token -> new Pair<>(token.getWord(), new Pair<>(document.getName(), token.getOffset())));
+    }
+
+    @Override
+    protected Collector<Pair<String, Long>, ?, List<Pair<String, Long>>> reducer() {
+        return Collectors.toList();
+    }
+
+    @Override
+    protected Stream<Pair<String, List<Pair<String, Long>>>> sort(Stream<Pair<String, List<Pair<String, Long>>>> out) {
+        return out.sorted(Comparator.comparing(Pair::getKey));
+    }
+
+    @Override
+    protected String format(Pair<String, List<Pair<String, Long>>> pair) {
+        // Occurrences by file, then by offset
+        return pair.getKey() + " - " + pair.getValue().stream()
+                .sorted(Comparator.comparing((Pair<String, Long> posting) -> posting.getKey())
+                        .thenComparing(Pair::getValue))
+                .map(posting -> posting.getKey() + ":" + posting.getValue())
+                .collect(Collectors.joining(", "));
+    }
+}
@@ -0,0 +1,58 @@
+package wordstatistics;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collector;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import framework.Document;
+import framework.Pair;
+import framework.Token;
+
+/**
+ * Counts the sequences of n consecutive words of each document (tokens which
+ * are not words are skipped), writing "<n-gram> - <count>" lines from the most
+ * frequent n-gram.
+ */
+public class NGrams extends FileAnalysis<String, Boolean, Long> {
+    private final int n;
+
+    /**
+     * @param n Number of words of each n-gram.
+     */
+    public NGrams(int n) {
+        super(n + "-grams.txt");
+        this.n = n;
+    }
+
+    @Override
+    public Stream<Pair<String, Boolean>> map(Document document) {
+        List<String> words = new ArrayList<>();
+        for (Token token : document.getTokens()) {
+            if (token.isWord()) {
+                words.add(token.getWord());
+            }
+        }
+        return IntStream.rangeClosed(0, words.size() - this.n)
+                .mapToObj(i -> new Pair<>(String.join(" ", words.subList(i, i + this.n)), Boolean.TRUE));
+    }
+
+    @Override
+    protected Collector<Boolean, ?, Long> reducer() {
+        return Collectors.counting();
+    }
+
+    @Override
+    protected Stream<Pair<String, Long>> sort(Stream<Pair<String, Long>> out) {
+        return out.sorted(Comparator.comparing((Pair<String, Long> pair) -> pair.getValue()).reversed()
+                .thenComparing(Pair::getKey));
+    }
+
+    @Override
+    protected String format(Pair<String, Long> pair) {
+        return pair.getKey() + " - " + pair.getValue();
+    }
+}
@@ -0,0 +1,37 @@
+package wordstatistics;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Scanner;
+import java.util.stream.Stream;
+
+import framework.JobDriver;
+
+public class Statistics {
+    /**
+     * Given the absolute path of a directory, compute word frequencies,
+     * bigrams, an inverted index and the anagram classes of the documents
+     * in that directory, reading and tokenizing each of them only once.
+     */
+    public static void main(String[] args) throws IOException {
+        // Get directory path
+        Path directory;
+        try (Scanner input = new Scanner(System.in)) {
+            System.out.println("Enter the path of the directory where the documents are stored:");
+            directory = Paths.get(input.nextLine());
+        }
+
+        JobDriver driver = new JobDriver()
+                .add(new WordFrequency())
+                .add(new NGrams(2))
+                .add(new InvertedIndex())
+                .add(new AnagramClasses());
+
+        // Process each file ending with .txt
+        try (Stream<Path> files = Files.list(directory)) {
+            driver.executePhases(files.filter(file -> file.getFileName().toString().toLowerCase().endsWith(".txt")));
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package wordstatistics;
+
+import java.util.Comparator;
+import java.util.stream.Collector;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import framework.Document;
+import framework.Pair;
+import framework.Token;
+
+/**
+ * Counts the occurrences of each word, writing "<word> - <count>" lines from
+ * the most frequent word.
+ */
+public class WordFrequency extends FileAnalysis<String, Boolean, Long> {
+
+    public WordFrequency() {
+        super("word_frequency.txt");
+    }
+
+    @Override
+    public Stream<Pair<String, Boolean>> map(Document document) {
+        return document.getTokens().stream()
+                .filter(Token::isWord)
+                .map(token -> new Pair<>(token.getWord(), Boolean.TRUE));
+    }
+
+    @Override
+    protected Collector<Boolean, ?, Long> reducer() {
+        return Collectors.counting();
+    }
+
+    @Override
+    protected Stream<Pair<String, Long>> sort(Stream<Pair<String, Long>> out) {
+        return out.sorted(Comparator.comparing((Pair<String, Long> pair) -> pair.getValue()).reversed()
+                .thenComparing(Pair::getKey));
+    }
+
+    @Override
+    protected String format(Pair<String, Long> pair) {
+        return pair.getKey() + " - " + pair.getValue();
+    }
+}